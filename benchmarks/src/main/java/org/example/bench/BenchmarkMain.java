@@ -0,0 +1,26 @@
+package org.example.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the lexer benchmarks with the GC profiler attached, so every run reports
+ * allocated bytes per operation next to bytes/s and tokens/s. Any standard JMH
+ * command line option can be passed through.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty())
+            options.include(LexerBenchmark.class.getSimpleName());
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LexerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"small", "medium", "large"})
+        public String size;
+
+        byte[] source;
+        char[] chars;
+        Path file;
+        Object keywords;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            switch (size) {
+                case "small" -> source = PythonCorpus.generate(4 * 1024, 1);
+                case "medium" -> source = PythonCorpus.generate(256 * 1024, 2);
+                case "large" -> source = PythonCorpus.generate(8 * 1024 * 1024, 3);
+                default -> throw new IllegalArgumentException("Unknown corpus size: " + size);
+            }
+            chars = new String(source, StandardCharsets.UTF_8).toCharArray();
+            file = Files.createTempFile("lexer-bench-" + size, ".py");
+            Files.write(file, source);
+            keywords = LexerBinding.loadKeywords();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long bytes;
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            bytes = 0;
+            tokens = 0;
+        }
+    }
+
+    @Benchmark
+    public List<?> analyze(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newLexer(
+                new BufferedInputStream(new ByteArrayInputStream(corpus.source)), corpus.keywords);
+        List<?> tokens = LexerBinding.analyze(lexer);
+        counters.bytes += corpus.source.length;
+        counters.tokens += tokens.size();
+        return tokens;
+    }
+
+    @Benchmark
+    public List<?> analyzeReference(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newReferenceLexer(
+                new BufferedInputStream(new ByteArrayInputStream(corpus.source)), corpus.keywords);
+        List<?> tokens = LexerBinding.analyze(lexer);
+        counters.bytes += corpus.source.length;
+        counters.tokens += tokens.size();
+        return tokens;
+    }
+
+    @Benchmark
+    public void nextToken(Corpus corpus, Throughput counters, Blackhole blackhole) {
+        Object lexer = LexerBinding.newLexer(
+                new BufferedInputStream(new ByteArrayInputStream(corpus.source)), corpus.keywords);
+        long tokens = 0;
+        Object token;
+        while ((token = LexerBinding.nextToken(lexer)) != null) {
+            blackhole.consume(token);
+            tokens++;
+        }
+        counters.bytes += corpus.source.length;
+        counters.tokens += tokens;
+    }
+
+    @Benchmark
+    public long sink(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newLexer(
+                new BufferedInputStream(new ByteArrayInputStream(corpus.source)), corpus.keywords);
+        TokenCounter counter = new TokenCounter();
+        LexerBinding.analyze(lexer, LexerBinding.newCountingSink(counter));
+        counters.bytes += corpus.source.length;
+        counters.tokens += counter.tokens;
+        return counter.valueChars;
+    }
+
+    @State(Scope.Thread)
+    public static class ReusedLexer {
+        Object lexer;
+
+        @Setup(Level.Trial)
+        public void setUp(Corpus corpus) {
+            lexer = LexerBinding.newLexer(new ByteArrayInputStream(new byte[0]), corpus.keywords);
+        }
+    }
+
+    @Benchmark
+    public long sinkReused(Corpus corpus, ReusedLexer reused, Throughput counters) {
+        LexerBinding.reset(reused.lexer, new ByteArrayInputStream(corpus.source));
+        TokenCounter counter = new TokenCounter();
+        LexerBinding.analyze(reused.lexer, LexerBinding.newCountingSink(counter));
+        counters.bytes += corpus.source.length;
+        counters.tokens += counter.tokens;
+        return counter.valueChars;
+    }
+
+    @Benchmark
+    public Object columnar(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newLexer(
+                new BufferedInputStream(new ByteArrayInputStream(corpus.source)), corpus.keywords);
+        Object tokens = LexerBinding.newTokenBuffer();
+        LexerBinding.analyze(lexer, tokens);
+        counters.bytes += corpus.source.length;
+        counters.tokens += LexerBinding.size(tokens);
+        return tokens;
+    }
+
+    @Benchmark
+    public Object columnarInstrumented(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newLexer(
+                new BufferedInputStream(new ByteArrayInputStream(corpus.source)), corpus.keywords);
+        LexerBinding.setInstrumented(lexer, true);
+        Object tokens = LexerBinding.newTokenBuffer();
+        LexerBinding.analyze(lexer, tokens);
+        counters.bytes += corpus.source.length;
+        counters.tokens += LexerBinding.size(tokens);
+        return tokens;
+    }
+
+    @Benchmark
+    public Object columnarSlices(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newSlicingLexer(corpus.chars, corpus.keywords);
+        Object tokens = LexerBinding.newSlicedTokenBuffer(lexer);
+        LexerBinding.analyze(lexer, tokens);
+        counters.bytes += corpus.source.length;
+        counters.tokens += LexerBinding.size(tokens);
+        return tokens;
+    }
+
+    @Benchmark
+    public Object columnarLazyStrings(Corpus corpus, Throughput counters) {
+        Object lexer = LexerBinding.newSlicingLexer(corpus.chars, corpus.keywords);
+        LexerBinding.setLazyStrings(lexer, true);
+        Object tokens = LexerBinding.newSlicedTokenBuffer(lexer);
+        LexerBinding.analyze(lexer, tokens);
+        counters.bytes += corpus.source.length;
+        counters.tokens += LexerBinding.size(tokens);
+        return tokens;
+    }
+
+    @Benchmark
+    public List<?> analyzeMapped(Corpus corpus, Throughput counters) {
+        List<?> tokens = LexerBinding.analyze(LexerBinding.newLexer(corpus.file, corpus.keywords));
+        counters.bytes += corpus.source.length;
+        counters.tokens += tokens.size();
+        return tokens;
+    }
+
+    @Benchmark
+    public List<?> analyzeChunked(Corpus corpus, Throughput counters) {
+        List<?> tokens = LexerBinding.analyzeChunked(LexerBinding.newParallelLexer(corpus.keywords), corpus.chars);
+        counters.bytes += corpus.source.length;
+        counters.tokens += tokens.size();
+        return tokens;
+    }
+}
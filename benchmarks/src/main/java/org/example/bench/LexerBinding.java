@@ -0,0 +1,258 @@
+package org.example.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The lexer lives in the unnamed package, which JMH benchmarks cannot import,
+ * so it is bound once through constant method handles that the JIT inlines.
+ */
+final class LexerBinding {
+    private static final MethodHandle NEW_KEYWORD_TABLE;
+    private static final MethodHandle NEW_LEXER;
+    private static final MethodHandle NEW_MAPPED_LEXER;
+    private static final MethodHandle ANALYZE;
+    private static final MethodHandle NEXT_TOKEN;
+    private static final MethodHandle ANALYZE_INTO_SINK;
+    private static final MethodHandle NEW_COUNTING_SINK;
+    private static final MethodHandle NEW_TOKEN_BUFFER;
+    private static final MethodHandle NEW_SLICED_TOKEN_BUFFER;
+    private static final MethodHandle NEW_CHAR_ARRAY_LEXER;
+    private static final MethodHandle SET_SLICE_VALUES;
+    private static final MethodHandle SET_LAZY_STRINGS;
+    private static final MethodHandle SET_INSTRUMENTED;
+    private static final MethodHandle SET_TABLE_DRIVEN;
+    private static final MethodHandle GET_SOURCE;
+    private static final MethodHandle TOKEN_BUFFER_SIZE;
+    private static final MethodHandle RESET;
+    private static final MethodHandle NEW_PARALLEL_LEXER;
+    private static final MethodHandle ANALYZE_CHUNKED;
+
+    static {
+        try {
+            Class<?> lexer = Class.forName("Lexer");
+            Class<?> tokenType = Class.forName("TokenType");
+            Class<?> sink = Class.forName("TokenSink");
+            Class<?> keywordTable = Class.forName("KeywordTable");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            NEW_KEYWORD_TABLE = lookup.findConstructor(keywordTable, MethodType.methodType(void.class, Collection.class))
+                    .asType(MethodType.methodType(Object.class, Collection.class));
+            NEW_LEXER = lookup.findConstructor(lexer, MethodType.methodType(void.class, InputStream.class, keywordTable))
+                    .asType(MethodType.methodType(Object.class, InputStream.class, Object.class));
+            NEW_MAPPED_LEXER = lookup.findConstructor(lexer, MethodType.methodType(void.class, Path.class, keywordTable))
+                    .asType(MethodType.methodType(Object.class, Path.class, Object.class));
+            ANALYZE = lookup.findVirtual(lexer, "analyze", MethodType.methodType(List.class))
+                    .asType(MethodType.methodType(List.class, Object.class));
+            NEXT_TOKEN = lookup.findVirtual(lexer, "nextToken", MethodType.methodType(Class.forName("Token")))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            ANALYZE_INTO_SINK = lookup.findVirtual(lexer, "analyze", MethodType.methodType(void.class, sink))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            MethodType sinkSignature = MethodType.methodType(void.class, tokenType, String.class, int.class);
+            MethodHandles.Lookup self = MethodHandles.lookup();
+            MethodHandle accept = self.findStatic(TokenCounter.class, "accept",
+                    MethodType.methodType(void.class, TokenCounter.class, Object.class, String.class, int.class));
+            NEW_COUNTING_SINK = LambdaMetafactory.metafactory(self, "token", MethodType.methodType(sink, TokenCounter.class),
+                            sinkSignature, accept, sinkSignature)
+                    .getTarget()
+                    .asType(MethodType.methodType(Object.class, TokenCounter.class));
+            Class<?> tokenBuffer = Class.forName("TokenBuffer");
+            NEW_TOKEN_BUFFER = lookup.findConstructor(tokenBuffer, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            Class<?> sourceText = Class.forName("SourceText");
+            NEW_SLICED_TOKEN_BUFFER = lookup.findConstructor(tokenBuffer, MethodType.methodType(void.class, sourceText))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            NEW_CHAR_ARRAY_LEXER = lookup.findConstructor(lexer, MethodType.methodType(void.class, char[].class, keywordTable))
+                    .asType(MethodType.methodType(Object.class, char[].class, Object.class));
+            SET_SLICE_VALUES = lookup.findVirtual(lexer, "setSliceValues", MethodType.methodType(void.class, boolean.class))
+                    .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            SET_LAZY_STRINGS = lookup.findVirtual(lexer, "setLazyStrings", MethodType.methodType(void.class, boolean.class))
+                    .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            SET_INSTRUMENTED = lookup.findVirtual(lexer, "setInstrumented", MethodType.methodType(void.class, boolean.class))
+                    .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            SET_TABLE_DRIVEN = lookup.findVirtual(lexer, "setTableDriven", MethodType.methodType(void.class, boolean.class))
+                    .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            GET_SOURCE = lookup.findVirtual(lexer, "getSource", MethodType.methodType(sourceText))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            TOKEN_BUFFER_SIZE = lookup.findVirtual(tokenBuffer, "size", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            RESET = lookup.findVirtual(lexer, "reset", MethodType.methodType(void.class, InputStream.class))
+                    .asType(MethodType.methodType(void.class, Object.class, InputStream.class));
+            Class<?> parallelLexer = Class.forName("ParallelLexer");
+            NEW_PARALLEL_LEXER = lookup.findConstructor(parallelLexer, MethodType.methodType(void.class, keywordTable))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            ANALYZE_CHUNKED = lookup.findVirtual(parallelLexer, "analyzeChunked", MethodType.methodType(List.class, char[].class))
+                    .asType(MethodType.methodType(List.class, Object.class, char[].class));
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private LexerBinding() {
+    }
+
+    static Object loadKeywords() throws IOException {
+        try (InputStream in = LexerBinding.class.getResourceAsStream("/keywords.txt")) {
+            if (in == null)
+                throw new IOException("keywords.txt is missing from the classpath");
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return newKeywordTable(Arrays.asList(text.trim().split("\\s+")));
+        }
+    }
+
+    static Object newKeywordTable(Collection<String> keywords) {
+        try {
+            return (Object) NEW_KEYWORD_TABLE.invokeExact(keywords);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newLexer(InputStream in, Object keywords) {
+        try {
+            return (Object) NEW_LEXER.invokeExact(in, keywords);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newLexer(Path path, Object keywords) {
+        try {
+            return (Object) NEW_MAPPED_LEXER.invokeExact(path, keywords);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static List<?> analyze(Object lexer) {
+        try {
+            return (List<?>) ANALYZE.invokeExact(lexer);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object nextToken(Object lexer) {
+        try {
+            return (Object) NEXT_TOKEN.invokeExact(lexer);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newCountingSink(TokenCounter counter) {
+        try {
+            return (Object) NEW_COUNTING_SINK.invokeExact(counter);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newTokenBuffer() {
+        try {
+            return (Object) NEW_TOKEN_BUFFER.invokeExact();
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newReferenceLexer(InputStream in, Object keywords) {
+        try {
+            Object lexer = newLexer(in, keywords);
+            SET_TABLE_DRIVEN.invokeExact(lexer, false);
+            return lexer;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newSlicingLexer(char[] source, Object keywords) {
+        try {
+            Object lexer = (Object) NEW_CHAR_ARRAY_LEXER.invokeExact(source, keywords);
+            SET_SLICE_VALUES.invokeExact(lexer, true);
+            return lexer;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setLazyStrings(Object lexer, boolean lazyStrings) {
+        try {
+            SET_LAZY_STRINGS.invokeExact(lexer, lazyStrings);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setInstrumented(Object lexer, boolean instrumented) {
+        try {
+            SET_INSTRUMENTED.invokeExact(lexer, instrumented);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newSlicedTokenBuffer(Object lexer) {
+        try {
+            return (Object) NEW_SLICED_TOKEN_BUFFER.invokeExact((Object) GET_SOURCE.invokeExact(lexer));
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int size(Object tokenBuffer) {
+        try {
+            return (int) TOKEN_BUFFER_SIZE.invokeExact(tokenBuffer);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void analyze(Object lexer, Object sink) {
+        try {
+            ANALYZE_INTO_SINK.invokeExact(lexer, sink);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void reset(Object lexer, InputStream in) {
+        try {
+            RESET.invokeExact(lexer, in);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newParallelLexer(Object keywords) {
+        try {
+            return (Object) NEW_PARALLEL_LEXER.invokeExact(keywords);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static List<?> analyzeChunked(Object parallelLexer, char[] source) {
+        try {
+            return (List<?>) ANALYZE_CHUNKED.invokeExact(parallelLexer, source);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic generator of Python sources shaped like ordinary library code:
+ * classes and functions with docstrings, nested blocks, numeric-heavy
+ * expressions, string literals and comments.
+ */
+final class PythonCorpus {
+    private static final String[] NAMES = {
+            "self", "np", "x", "y", "data", "result", "value", "index", "items", "config",
+            "node", "parent", "buffer", "count", "total", "offset", "key", "name", "path", "args"
+    };
+    private static final String[] CALLS = {
+            "len", "range", "print", "isinstance", "np.zeros", "np.dot", "self.update", "os.path.join"
+    };
+    private static final String[] OPERATORS = {
+            " + ", " - ", " * ", " / ", " // ", " % ", " ** ", " << ", " >> ", " & ", " | ", " ^ "
+    };
+    private static final String[] COMPARISONS = {" < ", " > ", " <= ", " >= ", " == ", " != "};
+    private static final String[] NUMBERS = {
+            "0", "1", "2", "42", "1_000", "3.14", "0.5", "1e-9", "2.5E3", "0x1F", "0b1011", "0o755", "7j"
+    };
+    private static final String[] STRINGS = {
+            "'abc'", "\"value\"", "'key: %s'", "\"line\\n\"", "u'unicode'", "\"tab\\tseparated\"", "''"
+    };
+
+    private final Random random;
+    private final StringBuilder out = new StringBuilder();
+
+    private PythonCorpus(long seed) {
+        this.random = new Random(seed);
+    }
+
+    static byte[] generate(int targetBytes, long seed) {
+        PythonCorpus corpus = new PythonCorpus(seed);
+        int classIndex = 0;
+        while (corpus.out.length() < targetBytes)
+            corpus.writeClass(classIndex++);
+        return corpus.out.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void writeClass(int index) {
+        out.append("import os\nfrom collections import defaultdict\n\n\n");
+        out.append("class Model").append(index).append(":\n");
+        out.append("    '''Generated model ").append(index).append(".\n\n    Holds numeric state.\n    '''\n\n");
+        int methods = 3 + random.nextInt(5);
+        for (int i = 0; i < methods; i++)
+            writeMethod(i);
+        out.append('\n');
+    }
+
+    private void writeMethod(int index) {
+        out.append("    def method").append(index).append("(self, ").append(pick(NAMES)).append(", ")
+                .append(pick(NAMES)).append("=").append(pick(NUMBERS)).append("):\n");
+        int statements = 2 + random.nextInt(8);
+        for (int i = 0; i < statements; i++)
+            writeStatement(2, 2);
+        out.append("        return ").append(expression(3)).append("\n\n");
+    }
+
+    private void writeStatement(int depth, int budget) {
+        indent(depth);
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            out.append(pick(NAMES)).append(random.nextBoolean() ? " = " : " += ").append(expression(3));
+        } else if (kind < 5) {
+            out.append(pick(CALLS)).append('(').append(pick(STRINGS)).append(", ").append(expression(2)).append(')');
+        } else if (kind < 6) {
+            out.append("# ").append(pick(NAMES)).append(" is updated in place for speed");
+        } else if (kind < 7) {
+            out.append(pick(NAMES)).append(" = [").append(pick(NUMBERS));
+            for (int i = random.nextInt(12); i > 0; i--)
+                out.append(", ").append(pick(NUMBERS));
+            out.append(']');
+        } else if (budget > 0 && kind < 9) {
+            if (kind == 7)
+                out.append("for ").append(pick(NAMES)).append(" in range(").append(pick(NUMBERS)).append("):\n");
+            else
+                out.append("if ").append(pick(NAMES)).append(pick(COMPARISONS)).append(expression(2)).append(":\n");
+            int body = 1 + random.nextInt(3);
+            for (int i = 0; i < body; i++)
+                writeStatement(depth + 1, budget - 1);
+            return;
+        } else {
+            out.append(pick(NAMES)).append('.').append(pick(NAMES)).append(" = ").append(pick(STRINGS));
+        }
+        out.append('\n');
+    }
+
+    private String expression(int terms) {
+        StringBuilder expr = new StringBuilder(operand());
+        for (int i = random.nextInt(terms); i > 0; i--)
+            expr.append(pick(OPERATORS)).append(operand());
+        return expr.toString();
+    }
+
+    private String operand() {
+        int kind = random.nextInt(4);
+        if (kind == 0)
+            return pick(NUMBERS);
+        if (kind == 1)
+            return pick(CALLS) + "(" + pick(NAMES) + ")";
+        if (kind == 2)
+            return pick(NAMES) + "[" + pick(NUMBERS) + "]";
+        return pick(NAMES);
+    }
+
+    private void indent(int depth) {
+        for (int i = 0; i < depth; i++)
+            out.append("    ");
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
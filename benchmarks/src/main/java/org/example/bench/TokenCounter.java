@@ -0,0 +1,14 @@
+package org.example.bench;
+
+/**
+ * A metrics-style token consumer: it looks at every token once and keeps nothing.
+ */
+public final class TokenCounter {
+    long tokens;
+    long valueChars;
+
+    static void accept(TokenCounter counter, Object type, String value, int line) {
+        counter.tokens++;
+        counter.valueChars += value.length();
+    }
+}
@@ -0,0 +1,10 @@
+class CharArraySourceReader extends SourceReader {
+
+    CharArraySourceReader(char[] source) {
+        super(source, source.length);
+    }
+
+    CharArraySourceReader(char[] source, int length, int position) {
+        super(source, length, position);
+    }
+}
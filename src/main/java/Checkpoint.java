@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+public final class Checkpoint {
+    private static final int[] TOP_LEVEL = {0};
+
+    final AutomataState state;
+    final int[] indents;
+    final int currentIndent;
+    final StringType stringType;
+    final boolean stringHasEscapes;
+    final boolean blankLine;
+    final boolean emittedAny;
+    final char currentChar;
+    final String text;
+    final int textLength;
+    final int tokenStart;
+    final int tokenStartRow;
+    final int line;
+    final int offset;
+    final int mark;
+
+    Checkpoint(AutomataState state, int[] indents, int currentIndent, StringType stringType, boolean stringHasEscapes,
+               boolean blankLine, boolean emittedAny, char currentChar, String text, int textLength, int tokenStart,
+               int tokenStartRow, int line, int offset, int mark) {
+        this.state = state;
+        this.indents = indents;
+        this.currentIndent = currentIndent;
+        this.stringType = stringType;
+        this.stringHasEscapes = stringHasEscapes;
+        this.blankLine = blankLine;
+        this.emittedAny = emittedAny;
+        this.currentChar = currentChar;
+        this.text = text;
+        this.textLength = textLength;
+        this.tokenStart = tokenStart;
+        this.tokenStartRow = tokenStartRow;
+        this.line = line;
+        this.offset = offset;
+        this.mark = mark;
+    }
+
+    static Checkpoint start() {
+        return new Checkpoint(AutomataState.INITIAL, TOP_LEVEL, 0, StringType.NONE, false, true, false, '\0', "", 0, 0, 0, 0, 0, -1);
+    }
+
+    static Checkpoint lineStart(int line, int offset) {
+        return new Checkpoint(AutomataState.INDENT, TOP_LEVEL, 0, StringType.NONE, false, true, true, '\n', "", 0, offset, line, line, offset, -1);
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getIndentDepth() {
+        return indents.length - 1;
+    }
+
+    public boolean isLineStart() {
+        return state == AutomataState.INDENT && blankLine && currentIndent == 0 && stringType == StringType.NONE
+                && emittedAny && currentChar == '\n' && textLength == 0;
+    }
+
+    boolean isRestorable() {
+        return text != null;
+    }
+
+    boolean sameStateAs(Checkpoint other) {
+        if (state != other.state || currentIndent != other.currentIndent || stringType != other.stringType
+                || (stringType != StringType.NONE && stringHasEscapes != other.stringHasEscapes)
+                || blankLine != other.blankLine || emittedAny != other.emittedAny || currentChar != other.currentChar
+                || textLength != other.textLength || (isRestorable() && other.isRestorable() && !text.equals(other.text))
+                || !Arrays.equals(indents, other.indents)
+                || (mark < 0 ? other.mark >= 0 : mark - offset != other.mark - other.offset))
+            return false;
+        if (stringType == StringType.NONE && textLength == 0)
+            return true;
+        return tokenStart - offset == other.tokenStart - other.offset && tokenStartRow - line == other.tokenStartRow - other.line;
+    }
+
+    Checkpoint shifted(int offsets, int lines) {
+        if (offsets == 0 && lines == 0)
+            return this;
+        return new Checkpoint(state, indents, currentIndent, stringType, stringHasEscapes, blankLine, emittedAny, currentChar, text,
+                textLength, tokenStart + offsets, tokenStartRow + lines, line + lines, offset + offsets, mark < 0 ? mark : mark + offsets);
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+public class IncrementalLexer {
+    private static final int INITIAL_LINES = 64;
+
+    private final KeywordTable keywords;
+
+    public IncrementalLexer(KeywordTable keywords) {
+        this.keywords = keywords;
+    }
+
+    public Result analyze(CharSequence text) throws IOException {
+        char[] source = text.toString().toCharArray();
+        return relex(source, null, 0, 0, 0);
+    }
+
+    public Result edit(Result previous, int offset, int removed, CharSequence inserted) throws IOException {
+        Objects.checkFromIndexSize(offset, removed, previous.length);
+        int added = inserted.length();
+        char[] source = new char[previous.length - removed + added];
+        System.arraycopy(previous.source, 0, source, 0, offset);
+        inserted.toString().getChars(0, added, source, offset);
+        System.arraycopy(previous.source, offset + removed, source, offset + added, previous.length - offset - removed);
+        return relex(source, previous, restartLine(previous, offset), offset + added, added - removed);
+    }
+
+    private Result relex(char[] source, Result previous, int restart, int editEnd, int delta) throws IOException {
+        TokenBuffer tokens = new TokenBuffer(null, previous == null ? 0 : previous.tokens.size() + previous.tokens.size() / 8);
+        Lines lines = new Lines(previous == null ? INITIAL_LINES : previous.lines.size + previous.lines.size / 8);
+        Checkpoint checkpoint = Checkpoint.start();
+        if (previous != null) {
+            checkpoint = previous.lines.checkpoint(restart);
+            tokens.append(previous.tokens, 0, previous.lines.tokens[restart], 0, 0);
+            previous.tokens.replayLineStarts(tokens, 0, checkpoint.getOffset(), 0);
+            lines.addAll(previous.lines, 0, restart, 0, 0, 0);
+        }
+
+        Lexer lexer = new Lexer(source, source.length, keywords, checkpoint);
+        int candidate = restart + 1;
+        while (true) {
+            lines.add(checkpoint, tokens.size(), 0, 0);
+            int end = lineEnd(source, checkpoint.getOffset());
+            if (end < 0) {
+                lexer.analyzeUntil(Integer.MAX_VALUE, tokens);
+                break;
+            }
+            lexer.analyzeUntil(end, tokens);
+            checkpoint = lexer.checkpoint(false);
+            if (previous == null || checkpoint.getOffset() < editEnd || (checkpoint.mark >= 0 && checkpoint.mark < editEnd)
+                    || (!checkpoint.isRestorable() && checkpoint.tokenStart < editEnd))
+                continue;
+
+            int oldOffset = checkpoint.getOffset() - delta;
+            while (candidate < previous.lines.size && previous.lines.offset(candidate) < oldOffset)
+                candidate++;
+            if (candidate == previous.lines.size || previous.lines.offset(candidate) != oldOffset)
+                continue;
+            Checkpoint old = previous.lines.checkpoint(candidate);
+            if (!checkpoint.sameStateAs(old))
+                continue;
+
+            int lineShift = checkpoint.getLine() - old.getLine();
+            int first = previous.lines.tokens[candidate];
+            lines.addAll(previous.lines, candidate, previous.lines.size, tokens.size() - first, delta, lineShift);
+            tokens.append(previous.tokens, first, previous.tokens.size(), delta, lineShift);
+            previous.tokens.replayLineStarts(tokens, old.getOffset(), Integer.MAX_VALUE, delta);
+            break;
+        }
+        return new Result(source, tokens, lines);
+    }
+
+    private static int restartLine(Result previous, int offset) {
+        int low = 0;
+        int high = previous.lines.size - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (previous.lines.offset(middle) <= offset)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        while (!previous.lines.checkpoints[low].isRestorable())
+            low--;
+        return low;
+    }
+
+    private static int lineEnd(char[] source, int from) {
+        for (int i = from; i < source.length; i++)
+            if (source[i] == '\n')
+                return i + 1;
+        return -1;
+    }
+
+    private static class Lines {
+        private Checkpoint[] checkpoints;
+        private int[] tokens;
+        private int[] offsetShifts;
+        private int[] lineShifts;
+        private int size = 0;
+
+        Lines(int capacity) {
+            capacity = Math.max(capacity, INITIAL_LINES);
+            checkpoints = new Checkpoint[capacity];
+            tokens = new int[capacity];
+            offsetShifts = new int[capacity];
+            lineShifts = new int[capacity];
+        }
+
+        void add(Checkpoint checkpoint, int token, int offsetShift, int lineShift) {
+            ensureCapacity(size + 1);
+            checkpoints[size] = checkpoint;
+            tokens[size] = token;
+            offsetShifts[size] = offsetShift;
+            lineShifts[size] = lineShift;
+            size++;
+        }
+
+        void addAll(Lines other, int from, int to, int tokenShift, int offsetShift, int lineShift) {
+            int count = to - from;
+            ensureCapacity(size + count);
+            System.arraycopy(other.checkpoints, from, checkpoints, size, count);
+            for (int i = 0; i < count; i++) {
+                tokens[size + i] = other.tokens[from + i] + tokenShift;
+                offsetShifts[size + i] = other.offsetShifts[from + i] + offsetShift;
+                lineShifts[size + i] = other.lineShifts[from + i] + lineShift;
+            }
+            size += count;
+        }
+
+        int offset(int index) {
+            return checkpoints[index].getOffset() + offsetShifts[index];
+        }
+
+        Checkpoint checkpoint(int index) {
+            return checkpoints[index].shifted(offsetShifts[index], lineShifts[index]);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= checkpoints.length)
+                return;
+            int grown = Math.max(capacity, checkpoints.length * 2);
+            checkpoints = Arrays.copyOf(checkpoints, grown);
+            tokens = Arrays.copyOf(tokens, grown);
+            offsetShifts = Arrays.copyOf(offsetShifts, grown);
+            lineShifts = Arrays.copyOf(lineShifts, grown);
+        }
+    }
+
+    public static final class Result {
+        private final char[] source;
+        private final int length;
+        private final TokenBuffer tokens;
+        private final Lines lines;
+
+        private Result(char[] source, TokenBuffer tokens, Lines lines) {
+            this.source = source;
+            this.length = source.length;
+            this.tokens = tokens;
+            this.lines = lines;
+        }
+
+        public SourceText getSource() {
+            return new SourceText(source, length);
+        }
+
+        public TokenBuffer getTokens() {
+            return tokens;
+        }
+
+        public Checkpoint getLineStart(int index) {
+            return lines.checkpoint(Objects.checkIndex(index, lines.size));
+        }
+
+        public int getLineStartCount() {
+            return lines.size;
+        }
+    }
+}
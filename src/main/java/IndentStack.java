@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+final class IndentStack {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] levels = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    void push(int level) {
+        if (size == levels.length)
+            levels = Arrays.copyOf(levels, size * 2);
+        levels[size++] = level;
+    }
+
+    int peek() {
+        return levels[size - 1];
+    }
+
+    void pop() {
+        size--;
+    }
+
+    boolean contains(int level) {
+        return Arrays.binarySearch(levels, 0, size, level) >= 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(levels, size);
+    }
+
+    void restore(int[] levels) {
+        if (levels.length > this.levels.length)
+            this.levels = Arrays.copyOf(levels, Math.max(levels.length, this.levels.length * 2));
+        else
+            System.arraycopy(levels, 0, this.levels, 0, levels.length);
+        size = levels.length;
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+public final class KeywordTable {
+    private static final int MAX_SEED_ATTEMPTS = 1 << 10;
+    private static final int PERFECT_SIZE_ATTEMPTS = 3;
+
+    private final String[] slots;
+    private final int mask;
+    private final int seed;
+    private final int minLength;
+    private final int maxLength;
+    private final long firstCharMask;
+
+    public KeywordTable(Collection<String> keywords) {
+        Set<String> words = new LinkedHashSet<>(keywords);
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        long first = 0;
+        for (String word : words) {
+            if (word.isEmpty())
+                throw new IllegalArgumentException("Keywords cannot be empty");
+            min = Math.min(min, word.length());
+            max = Math.max(max, word.length());
+            first |= firstCharBit(word.charAt(0));
+        }
+        minLength = words.isEmpty() ? 1 : min;
+        maxLength = max;
+        firstCharMask = first;
+
+        int size = Integer.highestOneBit(Math.max(1, words.size()) * 2 - 1) << 1;
+        String[] table = null;
+        int seed = 0;
+        for (int attempt = 0; attempt < PERFECT_SIZE_ATTEMPTS && table == null; attempt++) {
+            for (int candidate = 1; candidate <= MAX_SEED_ATTEMPTS && table == null; candidate++) {
+                table = placeWithoutCollisions(words, size << attempt, candidate);
+                seed = candidate;
+            }
+        }
+        if (table == null) {
+            seed = 1;
+            table = placeWithProbing(words, size, seed);
+        }
+        this.slots = table;
+        this.mask = table.length - 1;
+        this.seed = seed;
+    }
+
+    public static KeywordTable load(Path path) throws IOException {
+        String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+        return new KeywordTable(text.isEmpty() ? Set.of() : Arrays.asList(text.split("\\s+")));
+    }
+
+    public boolean contains(CharSequence word) {
+        int length = word.length();
+        if (length < minLength || length > maxLength || (firstCharMask & firstCharBit(word.charAt(0))) == 0)
+            return false;
+        String candidate;
+        for (int slot = index(word, seed) & mask; (candidate = slots[slot]) != null; slot = (slot + 1) & mask)
+            if (matches(candidate, word))
+                return true;
+        return false;
+    }
+
+    String[] words() {
+        return Arrays.stream(slots).filter(Objects::nonNull).sorted().toArray(String[]::new);
+    }
+
+    private static boolean matches(String candidate, CharSequence word) {
+        int length = word.length();
+        if (candidate.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (candidate.charAt(i) != word.charAt(i))
+                return false;
+        return true;
+    }
+
+    private static String[] placeWithoutCollisions(Set<String> words, int size, int seed) {
+        String[] table = new String[size];
+        for (String word : words) {
+            int slot = index(word, seed) & (size - 1);
+            if (table[slot] != null)
+                return null;
+            table[slot] = word;
+        }
+        return table;
+    }
+
+    private static String[] placeWithProbing(Set<String> words, int size, int seed) {
+        String[] table = new String[size];
+        for (String word : words) {
+            int slot = index(word, seed) & (size - 1);
+            while (table[slot] != null)
+                slot = (slot + 1) & (size - 1);
+            table[slot] = word;
+        }
+        return table;
+    }
+
+    private static int index(CharSequence word, int seed) {
+        int multiplier = 0x01000193 + (seed << 1);
+        int h = seed;
+        for (int i = 0, length = word.length(); i < length; i++)
+            h = (h ^ word.charAt(i)) * multiplier;
+        return h ^ (h >>> 16);
+    }
+
+    private static long firstCharBit(char c) {
+        return 1L << (c & 63);
+    }
+}
@@ -1,108 +1,377 @@
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
 
-enum StringType {
-    NONE,
-    SINGLE_QUOTED,
-    DOUBLE_QUOTED,
-    TRIPLE_QUOTED
-}
-
 public class Lexer {
+    static final int VERSION = 1;
     private static final int MAX_INDENT_LENGTH = 8;
-    private final InputStream in;
-    private final ArrayList<String> keywords;
+    private static final AutomataState[] STATES = AutomataState.values();
+    private static final TransitionTable TRANSITIONS = TransitionTable.INSTANCE;
+    private static final AutomataState[] OPERATOR_STATES = operatorStates();
+    private static final TokenType[] STATE_TOKEN_TYPES = stateTokenTypes();
+    private SourceReader in;
+    private final KeywordTable keywords;
+    private SymbolTable symbols = new SymbolTable();
+    private LexerStatistics statistics;
     private AutomataState state = AutomataState.INITIAL;
     private final StringBuilder buffer = new StringBuilder();
-    private final List<Token> tokens = new ArrayList<>();
+    private final ArrayDeque<Token> pending = new ArrayDeque<>();
+    private final TokenSink pendingSink = new TokenCollector(pending);
+    private TokenSink sink = pendingSink;
+    private boolean sliceValues = false;
+    private boolean parseNumbers = false;
+    private boolean lazyStrings = false;
+    private boolean tableDriven = true;
+    private boolean emittedAny = false;
+    private boolean finished = false;
 
     private char currentChar;
     private int currentLine = 0;
+    private int lastLineStart = 0;
     private int currentIndent = 0;
     private int tokenStartRow = 0;
+    private int tokenStart = 0;
+    private boolean inputExhausted = false;
     private boolean blankLine = true;
-    private final LinkedList<Integer> indentsList = new LinkedList<>();
+    private final IndentStack indents = new IndentStack();
     private StringType currentStringType = StringType.NONE;
+    private boolean stringHasEscapes = false;
+
+    private static AutomataState[] operatorStates() {
+        AutomataState[] states = new AutomataState[128];
+        for (TokenType type : TokenType.values()) {
+            String value = type.getValue();
+            if (value.length() == 1 && value.charAt(0) < states.length)
+                states[value.charAt(0)] = AutomataState.valueOf(type.name());
+        }
+        return states;
+    }
+
+    private static TokenType[] stateTokenTypes() {
+        Map<String, TokenType> byName = new HashMap<>();
+        for (TokenType type : TokenType.values())
+            byName.put(type.name(), type);
+        TokenType[] types = new TokenType[STATES.length];
+        for (AutomataState state : EnumSet.range(AutomataState.PLUS, AutomataState.NOT_EQUAL)) {
+            if (state == AutomataState.ASSIGNMENT_OPERATOR)
+                continue;
+            TokenType type = byName.get(state.name());
+            if (type == null || type.getValue().isEmpty())
+                throw new IllegalStateException("No fixed-value token type for state " + state);
+            types[state.ordinal()] = type;
+        }
+        return types;
+    }
 
     public Lexer(InputStream in, ArrayList<String> keywords) {
+        this(new StreamSourceReader(in), new KeywordTable(keywords));
+    }
+
+    public Lexer(Path path, ArrayList<String> keywords) throws IOException {
+        this(new MappedSourceReader(path), new KeywordTable(keywords));
+    }
+
+    public Lexer(char[] source, ArrayList<String> keywords) {
+        this(new CharArraySourceReader(source), new KeywordTable(keywords));
+    }
+
+    public Lexer(InputStream in, KeywordTable keywords) {
+        this(new StreamSourceReader(in), keywords);
+    }
+
+    public Lexer(Path path, KeywordTable keywords) throws IOException {
+        this(new MappedSourceReader(path), keywords);
+    }
+
+    public Lexer(char[] source, KeywordTable keywords) {
+        this(new CharArraySourceReader(source), keywords);
+    }
+
+    Lexer(char[] source, int length, KeywordTable keywords, Checkpoint checkpoint) {
+        this(new CharArraySourceReader(source, length, checkpoint.offset), keywords);
+        restore(checkpoint);
+    }
+
+    private Lexer(SourceReader in, KeywordTable keywords) {
         this.in = in;
         this.keywords = keywords;
-        indentsList.add(0);
+        indents.push(0);
+    }
+
+    public void reset(InputStream in) {
+        if (this.in instanceof StreamSourceReader)
+            ((StreamSourceReader) this.in).restart(in);
+        else
+            this.in = new StreamSourceReader(in);
+        if (sliceValues || lazyStrings)
+            this.in.retain();
+        restore(Checkpoint.start());
+        pending.clear();
+        finished = false;
+        inputExhausted = false;
+        if (statistics != null)
+            statistics = new LexerStatistics();
+    }
+
+    public void setSliceValues(boolean sliceValues) {
+        if (sliceValues)
+            in.retain();
+        this.sliceValues = sliceValues;
+    }
+
+    public void setLazyStrings(boolean lazyStrings) {
+        if (lazyStrings)
+            in.retain();
+        this.lazyStrings = lazyStrings;
+    }
+
+    public void setParseNumbers(boolean parseNumbers) {
+        this.parseNumbers = parseNumbers;
+    }
+
+    public void setSymbolTable(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public void setInstrumented(boolean instrumented) {
+        statistics = instrumented ? new LexerStatistics() : null;
+    }
+
+    public LexerStatistics getStatistics() {
+        if (statistics == null)
+            throw new IllegalStateException("The lexer is not instrumented");
+        return statistics.snapshot();
+    }
+
+    public void setTableDriven(boolean tableDriven) {
+        this.tableDriven = tableDriven;
+    }
+
+    public SourceText getSource() {
+        return in.retained();
     }
 
     public List<Token> analyze() throws IOException {
-        int result;
-        while (true) {
-            result = in.read();
-            if (result < 0) {
-                if (currentChar == '\n')
-                    return tokens;
-                else {
-                    if (currentStringType == StringType.TRIPLE_QUOTED) {
-                        endToken(TokenType.ERROR, "Missing closing triple quote.");
-                        state = AutomataState.INITIAL;
+        List<Token> tokens = new ArrayList<>();
+        analyze(new TokenCollector(tokens));
+        return tokens;
+    }
+
+    public void analyze(TokenSink sink) throws IOException {
+        Token token;
+        while ((token = pending.poll()) != null)
+            sink.token(token.getType(), token.getValue(), token.getLine());
+        this.sink = sink;
+        try {
+            while (!finished)
+                advance();
+        } finally {
+            this.sink = pendingSink;
+        }
+    }
+
+    void analyzeUntil(int offset, TokenSink sink) throws IOException {
+        this.sink = sink;
+        try {
+            while (!finished && in.offset() < offset)
+                advance();
+        } finally {
+            this.sink = pendingSink;
+        }
+    }
+
+    Checkpoint checkpoint() {
+        return checkpoint(true);
+    }
+
+    Checkpoint checkpoint(boolean withText) {
+        String text = withText || buffer.length() == 0 ? buffer.toString() : null;
+        return new Checkpoint(state, indents.toArray(), currentIndent, currentStringType, stringHasEscapes, blankLine,
+                emittedAny, currentChar, text, buffer.length(), tokenStart, tokenStartRow, currentLine, in.offset(), in.markOffset());
+    }
+
+    private void restore(Checkpoint checkpoint) {
+        if (!checkpoint.isRestorable())
+            throw new IllegalArgumentException("Checkpoint was taken inside a token and kept no text to resume from");
+        state = checkpoint.state;
+        indents.restore(checkpoint.indents);
+        currentIndent = checkpoint.currentIndent;
+        currentStringType = checkpoint.stringType;
+        stringHasEscapes = checkpoint.stringHasEscapes;
+        blankLine = checkpoint.blankLine;
+        emittedAny = checkpoint.emittedAny;
+        currentChar = checkpoint.currentChar;
+        buffer.setLength(0);
+        buffer.append(checkpoint.text);
+        tokenStart = checkpoint.tokenStart;
+        tokenStartRow = checkpoint.tokenStartRow;
+        currentLine = checkpoint.line;
+        lastLineStart = checkpoint.offset;
+        in.markOffset(checkpoint.mark);
+    }
+
+    public Token nextToken() throws IOException {
+        while (pending.isEmpty()) {
+            if (finished)
+                return null;
+            advance();
+        }
+        return pending.poll();
+    }
+
+    public Iterator<Token> iterator() {
+        return new Iterator<>() {
+            private Token next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = nextToken();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
-                    currentChar = '\n';
                 }
-            } else currentChar = (char) result;
-
-            switch (state) {
-                case INITIAL -> setStateByCurrentChar();
-                case KEYWORD_OR_IDENTIFIER -> readKeywordOrIdentifier();
-                case COMMENT -> readComment();
-                case INVALID_SYMBOL -> readInvalidSymbol();
-
-                case PLUS, DOUBLE_SLASH, POWER, PERCENT, AT, LEFT_SHIFT, RIGHT_SHIFT, BITWISE_OR, BITWISE_AND, BITWISE_XOR, ASSIGN, COLON -> readAssignment();
-                case MINUS -> readOperatorWithAssignment(TokenType.MINUS, '>',
-                        AutomataState.ASSIGNMENT_OPERATOR, AutomataState.ARROW);
-                case ASTERISK -> readOperatorWithAssignment(TokenType.ASTERISK, '*',
-                        AutomataState.ASSIGNMENT_OPERATOR, AutomataState.POWER);
-                case SLASH -> readOperatorWithAssignment(TokenType.SLASH, '/',
-                        AutomataState.ASSIGNMENT_OPERATOR, AutomataState.DOUBLE_SLASH);
-
-                case LESS -> readOperatorWithAssignment(TokenType.LESS, '<',
-                        AutomataState.LESS_EQUAL, AutomataState.LEFT_SHIFT);
-                case GREATER -> readOperatorWithAssignment(TokenType.GREATER, '>',
-                        AutomataState.GREATER_EQUAL, AutomataState.RIGHT_SHIFT);
-
-                case ASSIGNMENT_OPERATOR -> endToken(TokenType.ASSIGNMENT_OPERATOR, buffer.toString());
-                case DOT -> readDot();
-                case EXCLAMATION_MARK -> readExclamationMark();
-
-                case DECIMAL_INTEGER -> readDecimalInteger();
-                case STARTING_WITH_ZERO -> readZeroIntegerOrRadix();
-                case BINARY_INTEGER -> readNonDecimalInteger(2);
-                case OCTAL_INTEGER -> readNonDecimalInteger(8);
-                case HEX_INTEGER -> readNonDecimalInteger(16);
-                case BINARY_INTEGER_START -> readNonDecimalIntegerStart(2);
-                case OCTAL_INTEGER_START -> readNonDecimalIntegerStart(8);
-                case HEX_INTEGER_START -> readNonDecimalIntegerStart(16);
-
-                case FLOAT -> readFloat();
-                case IMAGINARY -> endToken(TokenType.IMAGINARY_LITERAL, buffer.toString());
-                case ZERO_INTEGER -> readZeroInteger();
-                case INTEGER_WITH_ZERO_PREFIX -> readIntegerWithZeroPrefix();
-                case EXPONENT_FLOAT_ON_INTEGER -> readExponentFloatStart(TokenType.INTEGER_LITERAL);
-                case EXPONENT_FLOAT_ON_FLOAT -> readExponentFloatStart(TokenType.FLOATING_POINT_LITERAL);
-                case EXPONENT_FLOAT -> readExponentFloat();
-
-                case IDENTIFIER_OR_STRING_LITERAL -> readIdentifierOrStringLiteral();
-                case SINGLE_OR_TRIPLE_QUOTED_STRING -> readSingleOrTripleQuotedString();
-                case CLOSED_SINGLE_OR_OPENED_TRIPLE_QUOTED_STRING -> readClosedSingleOrOpenedTripleQuotedString();
-                case SINGLE_QUOTED_STRING -> readSingleQuotedString();
-                case DOUBLE_QUOTED_STRING -> readDoubleQuotedString();
-                case TRIPLE_QUOTED_STRING -> readTripleQuotedString();
-                case ESCAPE -> readEscaped();
-                case TRIPLE_QUOTED_STRING_WITH_QUOTE -> readTripleQuotedStringWithQuote();
-                case TRIPLE_QUOTED_STRING_WITH_DOUBLE_QUOTE -> readTripleQuotedStringWithDoubleQuote();
-
-                case FIRST_INDENT -> readFirstIndent();
-                case INDENT -> readIndent();
-                case BACKSLASH -> readBackslash();
-
-                default -> endTokenUsingTokenValue(state);
+                return next != null;
             }
+
+            @Override
+            public Token next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Token token = next;
+                next = null;
+                return token;
+            }
+        };
+    }
+
+    private void advance() throws IOException {
+        if (statistics != null)
+            advanceInstrumented();
+        else if (tableDriven)
+            advanceTableDriven();
+        else
+            step(in.read());
+    }
+
+    private void advanceInstrumented() throws IOException {
+        long[] chars = statistics.chars;
+        int result = in.read();
+        if (tableDriven) {
+            int from = state.ordinal();
+            int to = from;
+            int action;
+            while (result >= 0 && (action = TRANSITIONS.action(to, (char) result)) != TransitionTable.NONE) {
+                chars[to]++;
+                currentChar = (char) result;
+                if ((action & TransitionTable.APPEND) != 0)
+                    buffer.append(currentChar);
+                to = action & TransitionTable.STATE_MASK;
+                result = in.read();
+            }
+            if (to != from)
+                state = STATES[to];
+        }
+        int stepState = state.ordinal();
+        int offset = in.offset();
+        step(result);
+        chars[stepState] += in.offset() - offset + (result >= 0 ? 1 : 0);
+    }
+
+    private void advanceTableDriven() throws IOException {
+        int result = in.read();
+        int from = state.ordinal();
+        int to = from;
+        int action;
+        while (result >= 0 && (action = TRANSITIONS.action(to, (char) result)) != TransitionTable.NONE) {
+            currentChar = (char) result;
+            if ((action & TransitionTable.APPEND) != 0)
+                buffer.append(currentChar);
+            to = action & TransitionTable.STATE_MASK;
+            result = in.read();
+        }
+        if (to != from)
+            state = STATES[to];
+        step(result);
+    }
+
+    private void step(int result) throws IOException {
+        if (result < 0) {
+            inputExhausted = true;
+            if (currentChar == '\n') {
+                finished = true;
+                return;
+            } else {
+                if (currentStringType == StringType.TRIPLE_QUOTED) {
+                    endToken(TokenType.ERROR, "Missing closing triple quote.");
+                    state = AutomataState.INITIAL;
+                }
+                currentChar = '\n';
+            }
+        } else {
+            currentChar = (char) result;
+            if (currentChar == '\n')
+                lineBreak();
+        }
+
+        switch (state) {
+            case INITIAL -> setStateByCurrentChar();
+            case KEYWORD_OR_IDENTIFIER -> readKeywordOrIdentifier();
+            case COMMENT -> readComment();
+            case INVALID_SYMBOL -> readInvalidSymbol();
+
+            case PLUS, DOUBLE_SLASH, POWER, PERCENT, AT, LEFT_SHIFT, RIGHT_SHIFT, BITWISE_OR, BITWISE_AND, BITWISE_XOR, ASSIGN, COLON -> readAssignment();
+            case MINUS -> readOperatorWithAssignment(TokenType.MINUS, '>',
+                    AutomataState.ASSIGNMENT_OPERATOR, AutomataState.ARROW);
+            case ASTERISK -> readOperatorWithAssignment(TokenType.ASTERISK, '*',
+                    AutomataState.ASSIGNMENT_OPERATOR, AutomataState.POWER);
+            case SLASH -> readOperatorWithAssignment(TokenType.SLASH, '/',
+                    AutomataState.ASSIGNMENT_OPERATOR, AutomataState.DOUBLE_SLASH);
+
+            case LESS -> readOperatorWithAssignment(TokenType.LESS, '<',
+                    AutomataState.LESS_EQUAL, AutomataState.LEFT_SHIFT);
+            case GREATER -> readOperatorWithAssignment(TokenType.GREATER, '>',
+                    AutomataState.GREATER_EQUAL, AutomataState.RIGHT_SHIFT);
+
+            case ASSIGNMENT_OPERATOR -> endTokenWithText(TokenType.ASSIGNMENT_OPERATOR);
+            case DOT -> readDot();
+            case EXCLAMATION_MARK -> readExclamationMark();
+
+            case DECIMAL_INTEGER -> readDecimalInteger();
+            case STARTING_WITH_ZERO -> readZeroIntegerOrRadix();
+            case BINARY_INTEGER -> readNonDecimalInteger(2);
+            case OCTAL_INTEGER -> readNonDecimalInteger(8);
+            case HEX_INTEGER -> readNonDecimalInteger(16);
+            case BINARY_INTEGER_START -> readNonDecimalIntegerStart(2);
+            case OCTAL_INTEGER_START -> readNonDecimalIntegerStart(8);
+            case HEX_INTEGER_START -> readNonDecimalIntegerStart(16);
+
+            case FLOAT -> readFloat();
+            case IMAGINARY -> endTokenWithText(TokenType.IMAGINARY_LITERAL);
+            case ZERO_INTEGER -> readZeroInteger();
+            case INTEGER_WITH_ZERO_PREFIX -> readIntegerWithZeroPrefix();
+            case EXPONENT_FLOAT_ON_INTEGER -> readExponentFloatStart(TokenType.INTEGER_LITERAL);
+            case EXPONENT_FLOAT_ON_FLOAT -> readExponentFloatStart(TokenType.FLOATING_POINT_LITERAL);
+            case EXPONENT_FLOAT -> readExponentFloat();
+
+            case IDENTIFIER_OR_STRING_LITERAL -> readIdentifierOrStringLiteral();
+            case SINGLE_OR_TRIPLE_QUOTED_STRING -> readSingleOrTripleQuotedString();
+            case CLOSED_SINGLE_OR_OPENED_TRIPLE_QUOTED_STRING -> readClosedSingleOrOpenedTripleQuotedString();
+            case SINGLE_QUOTED_STRING -> readSingleQuotedString();
+            case DOUBLE_QUOTED_STRING -> readDoubleQuotedString();
+            case TRIPLE_QUOTED_STRING -> readTripleQuotedString();
+            case ESCAPE -> readEscaped();
+            case TRIPLE_QUOTED_STRING_WITH_QUOTE -> readTripleQuotedStringWithQuote();
+            case TRIPLE_QUOTED_STRING_WITH_DOUBLE_QUOTE -> readTripleQuotedStringWithDoubleQuote();
+
+            case FIRST_INDENT -> readFirstIndent();
+            case INDENT -> readIndent();
+            case BACKSLASH -> readBackslash();
+
+            default -> endTokenUsingTokenValue(state);
         }
     }
 
@@ -110,41 +379,92 @@ public class Lexer {
         this.state = state;
         buffer.append(currentChar);
         tokenStartRow = currentLine;
+        tokenStart = currentOffset();
         blankLine = false;
+        stringHasEscapes = false;
+        in.clearMark();
+    }
+
+    private int currentOffset() {
+        return inputExhausted ? in.offset() : in.offset() - 1;
+    }
+
+    private void emit(TokenType type, String value, int line, int start, int end) {
+        if (statistics != null)
+            statistics.token(type, buffer.length());
+        sink.token(type, value, line, start, end);
+        emittedAny = true;
+    }
+
+    private void emitAtCurrentChar(TokenType type, String value) {
+        int start = currentOffset();
+        emit(type, value, currentLine, start, start);
     }
 
     private void endToken(TokenType type, String value) {
-        tokens.add(new Token(type, value, tokenStartRow));
+        emit(type, value, tokenStartRow, tokenStart, currentOffset());
         buffer.setLength(0);
         setStateByCurrentChar();
     }
 
+    private void endTokenWithText(TokenType type) {
+        String value = sliceValues ? null : buffer.toString();
+        if (parseNumbers && NumberLiterals.isNumeric(type)) {
+            if (statistics != null)
+                statistics.token(type, buffer.length());
+            sink.token(type, value, tokenStartRow, tokenStart, currentOffset(), NumberLiterals.parse(type, buffer));
+            emittedAny = true;
+            buffer.setLength(0);
+            setStateByCurrentChar();
+        } else
+            endToken(type, value);
+    }
+
     private void endTokenUsingTokenValue(AutomataState state) {
-        String stateName = state.name();
-        TokenType type = TokenType.valueOf(stateName);
+        TokenType type = STATE_TOKEN_TYPES[state.ordinal()];
         endToken(type, type.getValue());
     }
 
     private void readWholeErrorToken() throws IOException {
         while (currentChar != ' ' && currentChar != '\n' && currentChar != '#') {
             buffer.append(currentChar);
-            int next = in.read();
-            currentChar = (char) next;
+            int next = read();
+            if (next < 0)
+                inputExhausted = true;
+            currentChar = next < 0 ? '\n' : (char) next;
         }
     }
 
     private void moveNCharsLeft() throws IOException {
         in.reset();
+        inputExhausted = false;
         currentChar = buffer.charAt(buffer.length() - 1);
         buffer.delete(buffer.length() - 1, buffer.length());
     }
 
     private void readInvalidSymbol() throws IOException {
-        int next = in.read();
-        currentChar = (char) next;
+        int next = read();
+        if (next < 0)
+            inputExhausted = true;
+        currentChar = next < 0 ? '\n' : (char) next;
         setStateByCurrentChar();
     }
 
+    private int read() throws IOException {
+        int next = in.read();
+        if (next == '\n')
+            lineBreak();
+        return next;
+    }
+
+    private void lineBreak() {
+        int offset = in.offset();
+        if (offset > lastLineStart) {
+            lastLineStart = offset;
+            sink.lineStart(offset);
+        }
+    }
+
     private void setStateByCurrentChar() {
         if (Utils.isValidIdentifierStart(currentChar)) {
             if (currentChar == 'U' || currentChar == 'u')
@@ -154,7 +474,7 @@ public class Lexer {
         }
         else if (currentChar == '0')
             startToken(AutomataState.STARTING_WITH_ZERO);
-        else if (Character.isDigit(currentChar))
+        else if (Utils.isDigit(currentChar))
             startToken(AutomataState.DECIMAL_INTEGER);
          else if (currentChar == '\'') {
             startToken(AutomataState.SINGLE_OR_TRIPLE_QUOTED_STRING);
@@ -166,9 +486,9 @@ public class Lexer {
         } else if (currentChar == '\n') {
             readLineFeed();
         } else if (currentChar == '\\') {
-            in.mark(Integer.MAX_VALUE);
             startToken(AutomataState.BACKSLASH);
-        } else if (Character.isWhitespace(currentChar)) {
+            in.mark();
+        } else if (Utils.isWhitespace(currentChar)) {
             if (blankLine && (currentChar == ' ' || currentChar == '\t'))
                 state = AutomataState.FIRST_INDENT;
             else
@@ -176,19 +496,13 @@ public class Lexer {
         } else if (currentChar == '#')
             state = AutomataState.COMMENT;
         else {
-            String currCharStr = String.valueOf(currentChar);
-            TokenType type = null;
-            for (TokenType t : TokenType.values())
-                if (currCharStr.equals(t.getValue()))
-                    type = t;
-            if (type == null) {
-                tokens.add(new Token(TokenType.ERROR, "Invalid symbol.", currentLine));
+            AutomataState operatorState = currentChar < OPERATOR_STATES.length ? OPERATOR_STATES[currentChar] : null;
+            if (operatorState == null) {
+                int start = currentOffset();
+                emit(TokenType.ERROR, "Invalid symbol.", currentLine, start, start + 1);
                 state = AutomataState.INVALID_SYMBOL;
-            } else {
-                String typeName = type.name();
-                AutomataState state = AutomataState.valueOf(typeName);
-                startToken(state);
-            }
+            } else
+                startToken(operatorState);
         }
     }
 
@@ -196,11 +510,8 @@ public class Lexer {
         if (Utils.isValidIdentifierPart(currentChar))
             buffer.append(currentChar);
         else {
-            String value = buffer.toString();
-            if (keywords.contains(value))
-                tokens.add(new Token(TokenType.KEYWORD, value, tokenStartRow));
-            else
-            tokens.add(new Token(TokenType.IDENTIFIER, value, tokenStartRow));
+            TokenType type = keywords.contains(buffer) ? TokenType.KEYWORD : TokenType.IDENTIFIER;
+            emit(type, sliceValues ? null : symbols.intern(buffer), tokenStartRow, tokenStart, currentOffset());
             buffer.setLength(0);
             setStateByCurrentChar();
         }
@@ -212,8 +523,7 @@ public class Lexer {
     }
 
     private void readAssignment() {
-        String stateName = state.name();
-        TokenType type = TokenType.valueOf(stateName);
+        TokenType type = STATE_TOKEN_TYPES[state.ordinal()];
         AutomataState assignmentState = AutomataState.ASSIGNMENT_OPERATOR;
         if (currentChar == '=') {
             buffer.append(currentChar);
@@ -245,7 +555,7 @@ public class Lexer {
     }
 
     private void readDot() {
-        if (Character.isDigit(currentChar)) {
+        if (Utils.isDigit(currentChar)) {
             buffer.append(currentChar);
             state = AutomataState.FLOAT;
         } else
@@ -258,19 +568,16 @@ public class Lexer {
             state = AutomataState.FLOAT;
         }
         else if (currentChar == 'B' || currentChar == 'b') {
-            in.mark(2);
             buffer.append(currentChar);
             state = AutomataState.BINARY_INTEGER_START;
         } else if (currentChar == 'O' || currentChar == 'o') {
-            in.mark(2);
             buffer.append(currentChar);
             state = AutomataState.OCTAL_INTEGER_START;
         } else if (currentChar == 'X' || currentChar == 'x') {
-            in.mark(2);
             buffer.append(currentChar);
             state = AutomataState.HEX_INTEGER_START;
         } else if (currentChar == 'E' || currentChar == 'e') {
-            in.mark(3);
+            in.mark();
             buffer.append(currentChar);
             state = AutomataState.EXPONENT_FLOAT_ON_INTEGER;
         } else if (currentChar == 'J' || currentChar == 'j') {
@@ -279,51 +586,51 @@ public class Lexer {
         } else if (currentChar == '0') {
             buffer.append(currentChar);
             state = AutomataState.ZERO_INTEGER;
-        } else if (Character.isDigit(currentChar)) {
+        } else if (Utils.isDigit(currentChar)) {
             buffer.append(currentChar);
             state = AutomataState.INTEGER_WITH_ZERO_PREFIX;
-        } else if (Character.isLetter(currentChar)) {
+        } else if (Utils.isLetter(currentChar)) {
             readWholeErrorToken();
             endToken(TokenType.ERROR, "The identifier cannot start with a digit");
         } else
-            endToken(TokenType.INTEGER_LITERAL, buffer.toString());
+            endTokenWithText(TokenType.INTEGER_LITERAL);
     }
 
     private void readDecimalInteger() throws IOException {
-        if (Character.isDigit(currentChar) || currentChar == '_') {
+        if (Utils.isDigit(currentChar) || currentChar == '_') {
             buffer.append(currentChar);
         } else if (currentChar == '.') {
             buffer.append(currentChar);
             state = AutomataState.FLOAT;
         } else if (currentChar == 'E' || currentChar == 'e') {
-            in.mark(3);
+            in.mark();
             buffer.append(currentChar);
             state = AutomataState.EXPONENT_FLOAT_ON_INTEGER;
         } else if (currentChar == 'J' || currentChar == 'j') {
             buffer.append(currentChar);
             state = AutomataState.IMAGINARY;
-        } else if (Character.isLetter(currentChar)) {
+        } else if (Utils.isLetter(currentChar)) {
             readWholeErrorToken();
             endToken(TokenType.ERROR, "The identifier cannot start with a digit");
         } else
-            endToken(TokenType.INTEGER_LITERAL, buffer.toString());
+            endTokenWithText(TokenType.INTEGER_LITERAL);
     }
 
     private void readFloat() throws IOException {
-        if (Character.isDigit(currentChar))
+        if (Utils.isDigit(currentChar))
             buffer.append(currentChar);
         else if (currentChar == 'E' || currentChar == 'e') {
-            in.mark(3);
+            in.mark();
             buffer.append(currentChar);
             state = AutomataState.EXPONENT_FLOAT_ON_FLOAT;
         } else if (currentChar == 'J' || currentChar == 'j') {
             buffer.append(currentChar);
             state = AutomataState.IMAGINARY;
-        } else if (Character.isLetter(currentChar)) {
+        } else if (Utils.isLetter(currentChar)) {
             readWholeErrorToken();
             endToken(TokenType.ERROR, "The identifier cannot start with a digit");
         } else
-            endToken(TokenType.FLOATING_POINT_LITERAL, buffer.toString());
+            endTokenWithText(TokenType.FLOATING_POINT_LITERAL);
     }
 
     private void readNonDecimalInteger(int radix) throws IOException {
@@ -331,9 +638,9 @@ public class Lexer {
             buffer.append(currentChar);
         else if (currentChar == ' ' || currentChar == '\n' || currentChar == '#') {
             switch (radix) {
-                case 2 -> endToken(TokenType.BINARY_INTEGER_LITERAL, buffer.toString());
-                case 8 -> endToken(TokenType.OCTAL_INTEGER_LITERAL, buffer.toString());
-                case 16 -> endToken(TokenType.HEX_INTEGER_LITERAL, buffer.toString());
+                case 2 -> endTokenWithText(TokenType.BINARY_INTEGER_LITERAL);
+                case 8 -> endTokenWithText(TokenType.OCTAL_INTEGER_LITERAL);
+                case 16 -> endTokenWithText(TokenType.HEX_INTEGER_LITERAL);
             }
         }
         else {
@@ -367,34 +674,34 @@ public class Lexer {
     private void readZeroInteger() throws IOException {
         if (currentChar == '0') {
             buffer.append(currentChar);
-        } else if (Character.isDigit(currentChar)) {
+        } else if (Utils.isDigit(currentChar)) {
             buffer.append(currentChar);
             state = AutomataState.INTEGER_WITH_ZERO_PREFIX;
         } else if (currentChar == '.') {
             buffer.append(currentChar);
             state = AutomataState.FLOAT;
         } else if (currentChar == 'E' || currentChar == 'e') {
-            in.mark(3);
+            in.mark();
             buffer.append(currentChar);
             state = AutomataState.EXPONENT_FLOAT_ON_INTEGER;
         } else if (currentChar == 'J' || currentChar == 'j') {
             buffer.append(currentChar);
             state = AutomataState.IMAGINARY;
-        } else if (Character.isLetter(currentChar)) {
+        } else if (Utils.isLetter(currentChar)) {
             readWholeErrorToken();
             endToken(TokenType.ERROR, "The identifier cannot start with a digit");
         } else
-            endToken(TokenType.INTEGER_LITERAL, buffer.toString());
+            endTokenWithText(TokenType.INTEGER_LITERAL);
     }
 
     private void readIntegerWithZeroPrefix() throws IOException {
-        if (Character.isDigit(currentChar)) {
+        if (Utils.isDigit(currentChar)) {
             buffer.append(currentChar);
         } else if (currentChar == '.') {
             buffer.append(currentChar);
             state = AutomataState.FLOAT;
         } else if (currentChar == 'E' || currentChar == 'e') {
-            in.mark(3);
+            in.mark();
             buffer.append(currentChar);
             state = AutomataState.EXPONENT_FLOAT;
         } else if (currentChar == 'J' || currentChar == 'j') {
@@ -407,25 +714,25 @@ public class Lexer {
     }
 
     private void readExponentFloat() throws IOException {
-        if (Character.isDigit(currentChar))
+        if (Utils.isDigit(currentChar))
             buffer.append(currentChar);
-        else if (Character.isLetter(currentChar)) {
+        else if (Utils.isLetter(currentChar)) {
             readWholeErrorToken();
             endToken(TokenType.ERROR, "The identifier cannot start with a digit");
         } else
-            endToken(TokenType.FLOATING_POINT_LITERAL, buffer.toString());
+            endTokenWithText(TokenType.FLOATING_POINT_LITERAL);
     }
 
     private void readExponentFloatStart(TokenType t) throws IOException {
-        if (Character.isDigit(currentChar) || currentChar == '+' || currentChar == '-') {
+        if (Utils.isDigit(currentChar) || currentChar == '+' || currentChar == '-') {
             buffer.append(currentChar);
             state = AutomataState.EXPONENT_FLOAT;
-        } else if (Character.isLetter(currentChar)) {
+        } else if (Utils.isLetter(currentChar)) {
             readWholeErrorToken();
             endToken(TokenType.ERROR, "The identifier cannot start with a digit");
         } else {
             moveNCharsLeft();
-            endToken(t, buffer.toString());
+            endTokenWithText(t);
         }
     }
 
@@ -518,22 +825,35 @@ public class Lexer {
             currentStringType = StringType.TRIPLE_QUOTED;
         } else {
             currentStringType = StringType.NONE;
-            endToken(TokenType.STRING_LITERAL, buffer.toString());
+            emitString(currentOffset());
+            buffer.setLength(0);
+            setStateByCurrentChar();
         }
     }
 
     private void quitString() {
-        tokens.add(new Token(TokenType.STRING_LITERAL, buffer.toString(), tokenStartRow));
+        emitString(currentOffset() + 1);
         buffer.setLength(0);
         state = AutomataState.INITIAL;
         currentStringType = StringType.NONE;
     }
 
+    private void emitString(int end) {
+        if (statistics != null)
+            statistics.token(TokenType.STRING_LITERAL, buffer.length());
+        if (lazyStrings)
+            sink.stringToken(tokenStartRow, tokenStart, end, stringHasEscapes);
+        else
+            sink.token(TokenType.STRING_LITERAL, buffer.toString(), tokenStartRow, tokenStart, end);
+        emittedAny = true;
+    }
+
     private void readEscaped() {
-        Character escaped = Utils.escapeChar(currentChar);
-        if (escaped != null)
+        char escaped = Utils.escapeChar(currentChar);
+        if (escaped != Utils.NOT_AN_ESCAPE) {
             buffer.append(escaped);
-        else {
+            stringHasEscapes = true;
+        } else {
             buffer.append('\\');
             buffer.append(currentChar);
         }
@@ -546,11 +866,12 @@ public class Lexer {
 
     private void readLineFeed() {
         if (!blankLine) {
-            tokens.add(new Token(TokenType.NEWLINE, TokenType.NEWLINE.getValue(), currentLine));
+            int start = currentOffset();
+            emit(TokenType.NEWLINE, TokenType.NEWLINE.getValue(), currentLine, start, inputExhausted ? start : start + 1);
             currentIndent = 0;
             blankLine = true;
             state = AutomataState.INDENT;
-        } else if (tokens.isEmpty())
+        } else if (!emittedAny)
             state = AutomataState.INITIAL;
         else
             state = AutomataState.INDENT;
@@ -558,9 +879,9 @@ public class Lexer {
     }
 
     private void readFirstIndent() {
-        if (!Character.isWhitespace(currentChar)) {
+        if (!Utils.isWhitespace(currentChar)) {
             if (currentChar != '#') {
-                tokens.add(new Token(TokenType.ERROR, "Unexpected indent.", currentLine));
+                emitAtCurrentChar(TokenType.ERROR, "Unexpected indent.");
                 blankLine = false;
             }
             setStateByCurrentChar();
@@ -571,7 +892,7 @@ public class Lexer {
     }
 
     private void readIndent() {
-        if (Character.isWhitespace(currentChar)) {
+        if (Utils.isWhitespace(currentChar)) {
             if (currentChar == ' ') {
                 currentIndent++;
             } else if (currentChar == '\t') {
@@ -586,17 +907,17 @@ public class Lexer {
         } else if (currentChar == '#') {
             setStateByCurrentChar();
         } else {
-            if (currentIndent > indentsList.get(indentsList.size() - 1)) {
-                indentsList.add(currentIndent);
-                tokens.add(new Token(TokenType.INDENT, TokenType.INDENT.getValue(), currentLine));
-            } else if (currentIndent < indentsList.getLast()) {
-                if (indentsList.contains(currentIndent))
-                    while (indentsList.getLast() > currentIndent) {
-                        indentsList.removeLast();
-                        tokens.add(new Token(TokenType.DEDENT, TokenType.DEDENT.getValue(), currentLine));
+            if (currentIndent > indents.peek()) {
+                indents.push(currentIndent);
+                emitAtCurrentChar(TokenType.INDENT, TokenType.INDENT.getValue());
+            } else if (currentIndent < indents.peek()) {
+                if (indents.contains(currentIndent))
+                    while (indents.peek() > currentIndent) {
+                        indents.pop();
+                        emitAtCurrentChar(TokenType.DEDENT, TokenType.DEDENT.getValue());
                     }
                 else
-                    tokens.add(new Token(TokenType.ERROR, "Dedent does not match to any indentation level.", currentLine));
+                    emitAtCurrentChar(TokenType.ERROR, "Dedent does not match to any indentation level.");
             }
             blankLine = false;
             setStateByCurrentChar();
@@ -604,9 +925,9 @@ public class Lexer {
     }
 
     private void readBackslash() throws IOException {
-        if (!Character.isWhitespace(currentChar)) {
+        if (!Utils.isWhitespace(currentChar)) {
             buffer.setLength(0);
-            tokens.add(new Token(TokenType.ERROR, "Backslash does not continue a line.", tokenStartRow));
+            emit(TokenType.ERROR, "Backslash does not continue a line.", tokenStartRow, tokenStart, tokenStart + 1);
             state = AutomataState.INITIAL;
             in.reset();
         } else if (currentChar == '\n') {
@@ -615,4 +936,35 @@ public class Lexer {
             state = AutomataState.INITIAL;
         }
     }
+
+    private final class TokenCollector implements TokenSink {
+        private final Collection<Token> target;
+
+        private TokenCollector(Collection<Token> target) {
+            this.target = target;
+        }
+
+        @Override
+        public void token(TokenType type, String value, int line) {
+            target.add(new Token(type, value, line));
+        }
+
+        @Override
+        public void token(TokenType type, String value, int line, int start, int end) {
+            if (value == null)
+                target.add(new SliceToken(type, in.retained(), start, end - start, line));
+            else
+                target.add(new Token(type, value, line));
+        }
+
+        @Override
+        public void token(TokenType type, String value, int line, int start, int end, long number) {
+            target.add(new NumberToken(type, value, in.retained(), start, end - start, line, number));
+        }
+
+        @Override
+        public void stringToken(int line, int start, int end, boolean hasEscapes) {
+            target.add(new StringToken(in.retained(), start, end - start, line, hasEscapes));
+        }
+    }
 }
@@ -0,0 +1,75 @@
+import java.util.StringJoiner;
+
+public final class LexerStatistics {
+    private static final AutomataState[] STATES = AutomataState.values();
+    private static final TokenType[] TYPES = TokenType.values();
+
+    final long[] chars;
+    final long[] tokens;
+    private int bufferHighWaterMark;
+
+    LexerStatistics() {
+        this(new long[STATES.length], new long[TYPES.length], 0);
+    }
+
+    private LexerStatistics(long[] chars, long[] tokens, int bufferHighWaterMark) {
+        this.chars = chars;
+        this.tokens = tokens;
+        this.bufferHighWaterMark = bufferHighWaterMark;
+    }
+
+    void token(TokenType type, int bufferLength) {
+        tokens[type.ordinal()]++;
+        if (bufferLength > bufferHighWaterMark)
+            bufferHighWaterMark = bufferLength;
+    }
+
+    LexerStatistics snapshot() {
+        return new LexerStatistics(chars.clone(), tokens.clone(), bufferHighWaterMark);
+    }
+
+    public long getChars(AutomataState state) {
+        return chars[state.ordinal()];
+    }
+
+    public long getTotalChars() {
+        return sum(chars);
+    }
+
+    public long getTokens(TokenType type) {
+        return tokens[type.ordinal()];
+    }
+
+    public long getTotalTokens() {
+        return sum(tokens);
+    }
+
+    public long getErrorCount() {
+        return tokens[TokenType.ERROR.ordinal()];
+    }
+
+    public int getBufferHighWaterMark() {
+        return bufferHighWaterMark;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner states = new StringJoiner(", ", "{", "}");
+        for (AutomataState state : STATES)
+            if (chars[state.ordinal()] != 0)
+                states.add(state + "=" + chars[state.ordinal()]);
+        StringJoiner types = new StringJoiner(", ", "{", "}");
+        for (TokenType type : TYPES)
+            if (tokens[type.ordinal()] != 0)
+                types.add(type + "=" + tokens[type.ordinal()]);
+        return "chars " + states + ", tokens " + types + ", errors " + getErrorCount()
+                + ", buffer high-water mark " + bufferHighWaterMark;
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        return total;
+    }
+}
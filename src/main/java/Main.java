@@ -1,27 +1,13 @@
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Scanner;
 
 public class Main {
 
-    private static ArrayList<String> readFile(File file) throws FileNotFoundException {
-        Scanner sc = new Scanner(file);
-        ArrayList<String> res = new ArrayList<>();
-        while (sc.hasNext()){
-            String word = sc.next();
-            res.add(word);
-        }
-
-        return res;
-    }
-
     public static void main(String[] args) {
         try {
-            InputStream in = new BufferedInputStream(new FileInputStream("src/main/resources/test.py"));
-            File keywordsFile = new File("src/main/resources/keywords.txt");
-            ArrayList<String> keywords = readFile(keywordsFile);
-            Lexer lexer = new Lexer(in, keywords);
+            KeywordTable keywords = KeywordTable.load(Path.of("src/main/resources/keywords.txt"));
+            Lexer lexer = new Lexer(Path.of("src/main/resources/test.py"), keywords);
             List<Token> tokens = lexer.analyze();
             int currentLine = -1;
             for (Token token : tokens) {
@@ -0,0 +1,33 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class MappedSourceReader extends SourceReader {
+    private static final long MAX_REGION_SIZE = 1L << 30;
+
+    private final MappedByteBuffer[] regions;
+    private int nextRegion = 0;
+
+    MappedSourceReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            regions = new MappedByteBuffer[(int) ((size + MAX_REGION_SIZE - 1) / MAX_REGION_SIZE)];
+            for (int i = 0; i < regions.length; i++) {
+                long offset = i * MAX_REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAX_REGION_SIZE, size - offset));
+            }
+        }
+    }
+
+    @Override
+    protected ByteBuffer nextBytes() {
+        if (nextRegion == regions.length)
+            return null;
+        MappedByteBuffer region = regions[nextRegion];
+        regions[nextRegion++] = null;
+        return region;
+    }
+}
@@ -0,0 +1,141 @@
+import java.math.BigInteger;
+
+final class NumberLiterals {
+    static final long UNREPRESENTABLE = -1;
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final int MAX_EXPONENT = 100_000;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private NumberLiterals() {
+    }
+
+    static boolean isNumeric(TokenType type) {
+        return type == TokenType.INTEGER_LITERAL || type == TokenType.BINARY_INTEGER_LITERAL
+                || type == TokenType.OCTAL_INTEGER_LITERAL || type == TokenType.HEX_INTEGER_LITERAL
+                || type == TokenType.FLOATING_POINT_LITERAL;
+    }
+
+    static long parse(TokenType type, CharSequence text) {
+        return switch (type) {
+            case INTEGER_LITERAL -> parseInteger(text, 0, 10);
+            case BINARY_INTEGER_LITERAL -> parseInteger(text, 2, 2);
+            case OCTAL_INTEGER_LITERAL -> parseInteger(text, 2, 8);
+            case HEX_INTEGER_LITERAL -> parseInteger(text, 2, 16);
+            case FLOATING_POINT_LITERAL -> parseFloat(text);
+            default -> throw new IllegalArgumentException(type + " is not a numeric token");
+        };
+    }
+
+    static long longValue(TokenType type, long number) {
+        if (type == TokenType.FLOATING_POINT_LITERAL)
+            throw new IllegalStateException("Floating point literal has no long value");
+        if (number == UNREPRESENTABLE)
+            throw new ArithmeticException("Integer literal does not fit in a long");
+        return number;
+    }
+
+    static BigInteger bigIntegerValue(TokenType type, long number, CharSequence text) {
+        if (type == TokenType.FLOATING_POINT_LITERAL)
+            throw new IllegalStateException("Floating point literal has no integer value");
+        if (number != UNREPRESENTABLE)
+            return BigInteger.valueOf(number);
+        int prefix = type == TokenType.INTEGER_LITERAL ? 0 : 2;
+        return new BigInteger(digits(text, prefix, radix(type)), radix(type));
+    }
+
+    static double doubleValue(TokenType type, long number, CharSequence text) {
+        if (type != TokenType.FLOATING_POINT_LITERAL)
+            return number != UNREPRESENTABLE ? number : bigIntegerValue(type, number, text).doubleValue();
+        if (number != UNREPRESENTABLE)
+            return Double.longBitsToDouble(number);
+        String digits = digits(text, 0, 10);
+        char last = digits.charAt(digits.length() - 1);
+        return Double.parseDouble(last == 'e' || last == 'E' || last == '+' || last == '-' ? digits + '0' : digits);
+    }
+
+    private static long parseInteger(CharSequence text, int prefix, int radix) {
+        long value = 0;
+        for (int i = prefix, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '_')
+                continue;
+            int digit = Character.digit(c, radix);
+            if (value > (Long.MAX_VALUE - digit) / radix)
+                return UNREPRESENTABLE;
+            value = value * radix + digit;
+        }
+        return value;
+    }
+
+    private static long parseFloat(CharSequence text) {
+        long mantissa = 0;
+        int scale = 0;
+        boolean fraction = false;
+        int length = text.length();
+        int i = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.')
+                fraction = true;
+            else if (c == 'e' || c == 'E')
+                break;
+            else if (c != '_') {
+                mantissa = mantissa * 10 + Character.digit(c, 10);
+                if (mantissa > MAX_EXACT_MANTISSA)
+                    return UNREPRESENTABLE;
+                if (fraction)
+                    scale--;
+            }
+        }
+
+        int exponent = 0;
+        boolean negative = false;
+        for (i++; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '-')
+                negative = true;
+            else if (c != '+')
+                exponent = Math.min(exponent * 10 + Character.digit(c, 10), MAX_EXPONENT);
+        }
+        if (negative)
+            exponent = -exponent;
+
+        if (mantissa == 0)
+            return Double.doubleToRawLongBits(0.0);
+        exponent += scale;
+        if (exponent < -MAX_EXACT_POWER || exponent > MAX_EXACT_POWER)
+            return UNREPRESENTABLE;
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return Double.doubleToRawLongBits(value);
+    }
+
+    private static String digits(CharSequence text, int prefix, int radix) {
+        StringBuilder digits = new StringBuilder(text.length() - prefix);
+        for (int i = prefix; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int digit = Character.digit(c, radix);
+            if (digit >= 0)
+                digits.append(Character.forDigit(digit, radix));
+            else if (c != '_')
+                digits.append(c);
+        }
+        return digits.toString();
+    }
+
+    private static int radix(TokenType type) {
+        return switch (type) {
+            case BINARY_INTEGER_LITERAL -> 2;
+            case OCTAL_INTEGER_LITERAL -> 8;
+            case HEX_INTEGER_LITERAL -> 16;
+            default -> 10;
+        };
+    }
+}
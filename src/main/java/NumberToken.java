@@ -0,0 +1,26 @@
+import java.math.BigInteger;
+
+public class NumberToken extends SliceToken {
+    private final long number;
+    private BigInteger bigInteger;
+
+    public NumberToken(TokenType type, String value, SourceText source, int start, int length, int line, long number) {
+        super(type, source, start, length, line);
+        setValue(value);
+        this.number = number;
+    }
+
+    public long getLongValue() {
+        return NumberLiterals.longValue(getType(), number);
+    }
+
+    public BigInteger getBigIntegerValue() {
+        if (bigInteger == null)
+            bigInteger = NumberLiterals.bigIntegerValue(getType(), number, getText());
+        return bigInteger;
+    }
+
+    public double getDoubleValue() {
+        return NumberLiterals.doubleValue(getType(), number, getText());
+    }
+}
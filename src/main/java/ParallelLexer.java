@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ParallelLexer {
+    private static final String SOURCE_SUFFIX = ".py";
+    private static final int MIN_CHUNK_LENGTH = 1 << 20;
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final KeywordTable keywords;
+    private final ForkJoinPool pool;
+
+    public ParallelLexer(KeywordTable keywords) {
+        this(keywords, ForkJoinPool.commonPool());
+    }
+
+    public ParallelLexer(KeywordTable keywords, ForkJoinPool pool) {
+        this.keywords = keywords;
+        this.pool = pool;
+    }
+
+    public Map<Path, List<Token>> analyze(Path root) throws IOException {
+        return analyze(sourceFiles(root));
+    }
+
+    public Map<Path, List<Token>> analyze(Collection<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>(paths);
+        List<List<Token>> results = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++)
+            results.add(null);
+        run(new LexTask(0, files.size(), index -> results.set(index, new Lexer(files.get(index), keywords).analyze())));
+
+        Map<Path, List<Token>> tokens = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++)
+            tokens.put(files.get(i), results.get(i));
+        return tokens;
+    }
+
+    public void analyze(Path root, Function<Path, TokenSink> sinks) throws IOException {
+        analyze(sourceFiles(root), sinks);
+    }
+
+    public void analyze(Collection<Path> paths, Function<Path, TokenSink> sinks) throws IOException {
+        List<Path> files = new ArrayList<>(paths);
+        run(new LexTask(0, files.size(), index -> new Lexer(files.get(index), keywords).analyze(sinks.apply(files.get(index)))));
+    }
+
+    public List<Token> analyzeChunked(Path file) throws IOException {
+        List<Token> tokens = new ArrayList<>();
+        analyzeChunked(file, (type, value, line) -> tokens.add(new Token(type, value, line)));
+        return tokens;
+    }
+
+    public void analyzeChunked(Path file, TokenSink sink) throws IOException {
+        SourceText source = new MappedSourceReader(file).readFully();
+        analyzeChunked(source.array(), source.length(), sink);
+    }
+
+    public List<Token> analyzeChunked(char[] source) throws IOException {
+        List<Token> tokens = new ArrayList<>();
+        analyzeChunked(source, (type, value, line) -> tokens.add(new Token(type, value, line)));
+        return tokens;
+    }
+
+    public void analyzeChunked(char[] source, TokenSink sink) throws IOException {
+        analyzeChunked(source, source.length, sink);
+    }
+
+    private void analyzeChunked(char[] source, int length, TokenSink sink) throws IOException {
+        int[] bounds = chunkBounds(source, length);
+        int chunks = bounds.length - 1;
+        if (chunks == 1) {
+            new Lexer(source, length, keywords, Checkpoint.start()).analyzeUntil(Integer.MAX_VALUE, sink);
+            return;
+        }
+        Chunk[] speculated = new Chunk[chunks];
+        run(new LexTask(0, chunks, index -> speculated[index] = lexChunk(source, length,
+                index == 0 ? Checkpoint.start() : Checkpoint.lineStart(0, bounds[index]), bounds[index + 1], index == chunks - 1)));
+
+        Checkpoint actual = null;
+        for (int i = 0; i < chunks; i++) {
+            Chunk chunk = speculated[i];
+            int shift = 0;
+            if (i > 0) {
+                if (actual.getOffset() == bounds[i] && actual.isLineStart()) {
+                    shift = actual.getLine();
+                    for (int depth = actual.getIndentDepth(); depth > 0; depth--)
+                        sink.token(TokenType.DEDENT, TokenType.DEDENT.getValue(), shift, bounds[i], bounds[i]);
+                } else
+                    chunk = lexChunk(source, length, actual, bounds[i + 1], i == chunks - 1);
+            }
+            chunk.replay(sink, shift);
+            actual = chunk.end.shifted(0, shift);
+        }
+    }
+
+    private Chunk lexChunk(char[] source, int length, Checkpoint start, int end, boolean last) throws IOException {
+        Lexer lexer = new Lexer(source, length, keywords, start);
+        TokenBuffer tokens = new TokenBuffer();
+        lexer.analyzeUntil(last ? Integer.MAX_VALUE : end, tokens);
+        return new Chunk(tokens, start.getOffset(), lexer.checkpoint());
+    }
+
+    private int[] chunkBounds(char[] source, int length) {
+        if (pool.getParallelism() == 1)
+            return new int[]{0, length};
+        int chunkLength = Math.max(MIN_CHUNK_LENGTH, length / (pool.getParallelism() * CHUNKS_PER_WORKER));
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        for (int next = chunkLength; next < length; ) {
+            int split = codeLineStart(source, next, Math.min(length, next + chunkLength));
+            if (split < 0) {
+                next += chunkLength;
+            } else {
+                bounds.add(split);
+                next = split + chunkLength;
+            }
+        }
+        bounds.add(length);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int codeLineStart(char[] source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = source[i];
+            if (source[i - 1] == '\n' && !Utils.isWhitespace(c) && c != '#' && c != '\\')
+                return i;
+        }
+        return -1;
+    }
+
+    public static List<Path> sourceFiles(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(SOURCE_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void run(LexTask task) throws IOException {
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Chunk {
+        private final TokenBuffer tokens;
+        private final int offset;
+        private final Checkpoint end;
+
+        Chunk(TokenBuffer tokens, int offset, Checkpoint end) {
+            this.tokens = tokens;
+            this.offset = offset;
+            this.end = end;
+        }
+
+        void replay(TokenSink sink, int lineShift) {
+            tokens.replayLineStarts(sink, offset, end.getOffset(), 0);
+            for (int i = 0; i < tokens.size(); i++) {
+                int start = tokens.start(i);
+                sink.token(tokens.type(i), tokens.value(i), tokens.line(i) + lineShift, start, start + tokens.length(i));
+            }
+        }
+    }
+
+    private interface IndexedJob {
+        void run(int index) throws IOException;
+    }
+
+    private static class LexTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IndexedJob job;
+
+        LexTask(int from, int to, IndexedJob job) {
+            this.from = from;
+            this.to = to;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LexTask(from, middle, job), new LexTask(middle, to, job));
+                return;
+            }
+            if (from == to)
+                return;
+            try {
+                job.run(from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
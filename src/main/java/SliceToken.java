@@ -0,0 +1,35 @@
+import lombok.Getter;
+
+@Getter
+public class SliceToken extends Token {
+    private final SourceText source;
+    private final int start;
+    private final int length;
+
+    public SliceToken(TokenType type, SourceText source, int start, int length, int line) {
+        super(type, null, line);
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    public CharSequence getText() {
+        String value = super.getValue();
+        return value != null ? value : sliceText();
+    }
+
+    @Override
+    public String getValue() {
+        if (super.getValue() == null)
+            setValue(sliceValue());
+        return super.getValue();
+    }
+
+    protected String sliceValue() {
+        return source.substring(start, start + length);
+    }
+
+    protected CharSequence sliceText() {
+        return source.subSequence(start, start + length);
+    }
+}
@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+abstract class SourceReader {
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private char[] chars;
+    private final Utf8Decoder decoder = new Utf8Decoder();
+    private ByteBuffer bytes;
+    private SourceText retained;
+    private int base = 0;
+    private int pos = 0;
+    private int limit = 0;
+    private int mark = -1;
+    private boolean eof = false;
+
+    protected SourceReader() {
+        chars = new char[BLOCK_SIZE];
+    }
+
+    protected SourceReader(char[] source, int length) {
+        this(source, length, 0);
+    }
+
+    protected SourceReader(char[] source, int length, int position) {
+        chars = source;
+        pos = position == 0 && length > 0 && source[0] == BYTE_ORDER_MARK ? 1 : position;
+        limit = length;
+        eof = true;
+        retained = new SourceText(source, length);
+    }
+
+    void restart() {
+        if (retained != null)
+            chars = new char[BLOCK_SIZE];
+        decoder.reset();
+        bytes = null;
+        retained = null;
+        base = 0;
+        pos = 0;
+        limit = 0;
+        mark = -1;
+        eof = false;
+    }
+
+    int read() throws IOException {
+        if (pos == limit && !refill())
+            return -1;
+        return chars[pos++];
+    }
+
+    int offset() {
+        return base + pos;
+    }
+
+    void mark() {
+        mark = pos;
+    }
+
+    void reset() {
+        pos = mark;
+    }
+
+    void clearMark() {
+        mark = -1;
+    }
+
+    int markOffset() {
+        return mark < 0 ? -1 : base + mark;
+    }
+
+    void markOffset(int offset) {
+        mark = offset < 0 ? -1 : offset - base;
+    }
+
+    SourceText retain() {
+        if (retained == null) {
+            if (base > 0)
+                throw new IllegalStateException("Input has already been consumed");
+            retained = new SourceText(chars, limit);
+        }
+        return retained;
+    }
+
+    SourceText readFully() throws IOException {
+        SourceText text = retain();
+        pos = limit;
+        while (refill())
+            pos = limit;
+        return text;
+    }
+
+    SourceText retained() {
+        return retained;
+    }
+
+    protected ByteBuffer nextBytes() throws IOException {
+        return null;
+    }
+
+    private boolean refill() throws IOException {
+        if (eof)
+            return false;
+        int discard = retained != null ? 0 : mark >= 0 ? mark : limit;
+        int keep = limit - discard;
+        if (chars.length - keep < 2) {
+            char[] grown = new char[chars.length * 2];
+            System.arraycopy(chars, discard, grown, 0, keep);
+            chars = grown;
+        } else if (discard > 0 && keep > 0) {
+            System.arraycopy(chars, discard, chars, 0, keep);
+        }
+        if (mark >= 0)
+            mark -= discard;
+        base += discard;
+        pos = keep;
+        limit = keep;
+        while (limit == keep) {
+            if (bytes == null || !bytes.hasRemaining()) {
+                bytes = nextBytes();
+                if (bytes == null) {
+                    eof = true;
+                    limit += decoder.finish(chars, limit);
+                    break;
+                }
+            }
+            limit += decoder.decode(bytes, chars, limit);
+        }
+        if (retained != null)
+            retained.update(chars, limit);
+        return limit > keep;
+    }
+}
@@ -0,0 +1,47 @@
+import java.nio.CharBuffer;
+import java.util.Objects;
+
+public final class SourceText implements CharSequence {
+    private char[] chars;
+    private int length;
+
+    SourceText(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    void update(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    char[] array() {
+        return chars;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars[Objects.checkIndex(index, length)];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return CharBuffer.wrap(chars, start, end - start);
+    }
+
+    public String substring(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,28 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+class StreamSourceReader extends SourceReader {
+    private InputStream in;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final ByteBuffer window = ByteBuffer.wrap(block);
+
+    StreamSourceReader(InputStream in) {
+        this.in = in;
+    }
+
+    void restart(InputStream in) {
+        this.in = in;
+        restart();
+    }
+
+    @Override
+    protected ByteBuffer nextBytes() throws IOException {
+        int n = in.read(block, 0, block.length);
+        if (n < 0)
+            return null;
+        window.clear();
+        window.limit(n);
+        return window;
+    }
+}
@@ -0,0 +1,44 @@
+final class StringLiterals {
+    private StringLiterals() {
+    }
+
+    static String value(SourceText source, int start, int end, boolean hasEscapes) {
+        int quote = openingQuote(source, start);
+        int quotes = quotes(source, quote, end);
+        return hasEscapes ? decode(source.array(), quote + quotes, end - quotes) : source.substring(quote + quotes, end - quotes);
+    }
+
+    static CharSequence text(SourceText source, int start, int end, boolean hasEscapes) {
+        if (hasEscapes)
+            return value(source, start, end, true);
+        int quote = openingQuote(source, start);
+        int quotes = quotes(source, quote, end);
+        return source.subSequence(quote + quotes, end - quotes);
+    }
+
+    private static int openingQuote(SourceText source, int start) {
+        char ch = source.charAt(start);
+        return ch == '\'' || ch == '\"' ? start : start + 1;
+    }
+
+    private static int quotes(SourceText source, int quote, int end) {
+        boolean triple = end - quote >= 6 && source.charAt(quote) == '\''
+                && source.charAt(quote + 1) == '\'' && source.charAt(quote + 2) == '\'';
+        return triple ? 3 : 1;
+    }
+
+    private static String decode(char[] chars, int from, int to) {
+        StringBuilder value = new StringBuilder(to - from);
+        int run = from;
+        for (int i = from; i < to; i++) {
+            if (chars[i] != '\\')
+                continue;
+            char escaped = Utils.escapeChar(chars[++i]);
+            if (escaped == Utils.NOT_AN_ESCAPE)
+                continue;
+            value.append(chars, run, i - 1 - run).append(escaped);
+            run = i + 1;
+        }
+        return value.append(chars, run, to - run).toString();
+    }
+}
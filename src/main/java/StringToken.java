@@ -0,0 +1,22 @@
+public class StringToken extends SliceToken {
+    private final boolean hasEscapes;
+
+    public StringToken(SourceText source, int start, int length, int line, boolean hasEscapes) {
+        super(TokenType.STRING_LITERAL, source, start, length, line);
+        this.hasEscapes = hasEscapes;
+    }
+
+    public boolean hasEscapes() {
+        return hasEscapes;
+    }
+
+    @Override
+    protected String sliceValue() {
+        return StringLiterals.value(getSource(), getStart(), getStart() + getLength(), hasEscapes);
+    }
+
+    @Override
+    protected CharSequence sliceText() {
+        return StringLiterals.text(getSource(), getStart(), getStart() + getLength(), hasEscapes);
+    }
+}
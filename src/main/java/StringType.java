@@ -0,0 +1,6 @@
+enum StringType {
+    NONE,
+    SINGLE_QUOTED,
+    DOUBLE_QUOTED,
+    TRIPLE_QUOTED
+}
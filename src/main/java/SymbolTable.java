@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+public final class SymbolTable {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private String[] symbols = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public String intern(CharSequence chars) {
+        int hash = hash(chars);
+        int mask = symbols.length - 1;
+        int slot = hash & mask;
+        String symbol;
+        while ((symbol = symbols[slot]) != null) {
+            if (hashes[slot] == hash && matches(symbol, chars))
+                return symbol;
+            slot = (slot + 1) & mask;
+        }
+        symbol = chars.toString();
+        symbols[slot] = symbol;
+        hashes[slot] = hash;
+        if (++size * 2 > symbols.length)
+            grow();
+        return symbol;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(symbols, null);
+        size = 0;
+    }
+
+    private void grow() {
+        String[] oldSymbols = symbols;
+        int[] oldHashes = hashes;
+        symbols = new String[oldSymbols.length * 2];
+        hashes = new int[oldSymbols.length * 2];
+        int mask = symbols.length - 1;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] == null)
+                continue;
+            int slot = oldHashes[i] & mask;
+            while (symbols[slot] != null)
+                slot = (slot + 1) & mask;
+            symbols[slot] = oldSymbols[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private static boolean matches(String symbol, CharSequence chars) {
+        int length = chars.length();
+        if (symbol.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (symbol.charAt(i) != chars.charAt(i))
+                return false;
+        return true;
+    }
+
+    private static int hash(CharSequence chars) {
+        int h = 0x811C9DC5;
+        for (int i = 0, length = chars.length(); i < length; i++)
+            h = (h ^ chars.charAt(i)) * 0x01000193;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,271 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class TokenBuffer implements TokenSink {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte STRING_LITERAL = (byte) TokenType.STRING_LITERAL.ordinal();
+
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private String[] values;
+    private long[] numbers;
+    private final BitSet escapes = new BitSet();
+    private int[] lineStarts = new int[INITIAL_CAPACITY];
+    private int lineCount = 1;
+    private int size = 0;
+    private final SourceText source;
+
+    public TokenBuffer() {
+        this(null);
+    }
+
+    public TokenBuffer(SourceText source) {
+        this(source, INITIAL_CAPACITY);
+    }
+
+    TokenBuffer(SourceText source, int capacity) {
+        this.source = source;
+        capacity = Math.max(capacity, INITIAL_CAPACITY);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        values = new String[capacity];
+    }
+
+    @Override
+    public void token(TokenType type, String value, int line) {
+        token(type, value, line, -1, -1);
+    }
+
+    @Override
+    public void token(TokenType type, String value, int line, int start, int end) {
+        if (size == types.length)
+            grow(types.length * 2);
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = end - start;
+        lines[size] = line;
+        values[size] = value;
+        size++;
+    }
+
+    @Override
+    public void token(TokenType type, String value, int line, int start, int end, long number) {
+        token(type, value, line, start, end);
+        if (numbers == null)
+            numbers = new long[types.length];
+        numbers[size - 1] = number;
+    }
+
+    @Override
+    public void stringToken(int line, int start, int end, boolean hasEscapes) {
+        if (hasEscapes)
+            escapes.set(size);
+        token(TokenType.STRING_LITERAL, null, line, start, end);
+    }
+
+    @Override
+    public void lineStart(int offset) {
+        if (offset <= lineStarts[lineCount - 1])
+            return;
+        if (lineCount == lineStarts.length)
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        lineStarts[lineCount++] = offset;
+    }
+
+    void replayLineStarts(TokenSink sink, int from, int to, int offsetShift) {
+        for (int line = lineIndex(from) + 1; line < lineCount && lineStarts[line] <= to; line++)
+            sink.lineStart(lineStarts[line] + offsetShift);
+    }
+
+    void append(TokenBuffer other, int from, int to, int offsetShift, int lineShift) {
+        int count = to - from;
+        if (size + count > types.length)
+            grow(Math.max(size + count, types.length * 2));
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        System.arraycopy(other.values, from, values, size, count);
+        if (other.numbers != null) {
+            if (numbers == null)
+                numbers = new long[types.length];
+            System.arraycopy(other.numbers, from, numbers, size, count);
+        }
+        for (int i = other.escapes.nextSetBit(from); i >= 0 && i < to; i = other.escapes.nextSetBit(i + 1))
+            escapes.set(size + i - from);
+        for (int i = 0; i < count; i++) {
+            starts[size + i] = other.starts[from + i] + offsetShift;
+            lines[size + i] = other.lines[from + i] + lineShift;
+        }
+        size += count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[checkIndex(index)]];
+    }
+
+    public String value(int index) {
+        String value = values[checkIndex(index)];
+        if (value != null)
+            return value;
+        if (types[index] == STRING_LITERAL)
+            return StringLiterals.value(source(), starts[index], starts[index] + lengths[index], escapes.get(index));
+        return source().substring(starts[index], starts[index] + lengths[index]);
+    }
+
+    public CharSequence text(int index) {
+        String value = values[checkIndex(index)];
+        if (value != null)
+            return value;
+        if (types[index] == STRING_LITERAL)
+            return StringLiterals.text(source(), starts[index], starts[index] + lengths[index], escapes.get(index));
+        return source().subSequence(starts[index], starts[index] + lengths[index]);
+    }
+
+    public int line(int index) {
+        return lines[checkIndex(index)];
+    }
+
+    public int start(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    public int length(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    public int end(int index) {
+        return starts[checkIndex(index)] + lengths[index];
+    }
+
+    public int column(int index) {
+        int start = starts[checkIndex(index)];
+        if (start < 0)
+            throw new IllegalStateException("Token " + index + " has no source offset");
+        return start - lineStarts[lineIndex(start)];
+    }
+
+    public long longValue(int index) {
+        return NumberLiterals.longValue(type(index), number(index));
+    }
+
+    public BigInteger bigIntegerValue(int index) {
+        return NumberLiterals.bigIntegerValue(type(index), number(index), text(index));
+    }
+
+    public double doubleValue(int index) {
+        return NumberLiterals.doubleValue(type(index), number(index), text(index));
+    }
+
+    public Token get(int index) {
+        return new Token(type(index), value(index), line(index));
+    }
+
+    public List<Token> toTokens() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            tokens.add(get(i));
+        return tokens;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        numbers = null;
+        escapes.clear();
+        size = 0;
+        lineCount = 1;
+    }
+
+    private int lineIndex(int offset) {
+        int line = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return line >= 0 ? line : -line - 2;
+    }
+
+    private SourceText source() {
+        if (source == null)
+            throw new IllegalStateException("Token values were sliced, but the buffer has no source text");
+        return source;
+    }
+
+    private long number(int index) {
+        if (numbers == null || !NumberLiterals.isNumeric(type(index)))
+            throw new IllegalStateException("Token " + index + " has no parsed number");
+        return numbers[index];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Token index " + index + " out of bounds for size " + size);
+        return index;
+    }
+
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        values = Arrays.copyOf(values, capacity);
+        if (numbers != null)
+            numbers = Arrays.copyOf(numbers, capacity);
+    }
+
+    public class Cursor {
+        private int index = -1;
+
+        public boolean next() {
+            if (index < size)
+                index++;
+            return index < size;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public TokenType type() {
+            return TokenBuffer.this.type(index);
+        }
+
+        public String value() {
+            return TokenBuffer.this.value(index);
+        }
+
+        public CharSequence text() {
+            return TokenBuffer.this.text(index);
+        }
+
+        public int line() {
+            return TokenBuffer.this.line(index);
+        }
+
+        public int start() {
+            return TokenBuffer.this.start(index);
+        }
+
+        public int length() {
+            return TokenBuffer.this.length(index);
+        }
+
+        public int end() {
+            return TokenBuffer.this.end(index);
+        }
+
+        public int column() {
+            return TokenBuffer.this.column(index);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class TokenCache {
+    private static final int FORMAT_VERSION = 3;
+    private static final int CHECKSUM_LENGTH = 4;
+    private static final String SUFFIX = ".tokens";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final KeywordTable keywords;
+    private final byte[] keywordDigest;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    public TokenCache(Path directory, long maxBytes, KeywordTable keywords) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.keywords = keywords;
+        MessageDigest digest = sha256();
+        for (String word : keywords.words()) {
+            digest.update(word.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        this.keywordDigest = digest.digest();
+        loadEntries();
+    }
+
+    public List<Token> analyze(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        String key = key(bytes);
+        Path entry = directory.resolve(key + SUFFIX);
+        if (touch(key, entry)) {
+            try {
+                return read(entry);
+            } catch (IOException e) {
+                remove(key, entry);
+            }
+        }
+        List<Token> tokens = new Lexer(new ByteArrayInputStream(bytes), keywords).analyze();
+        store(key, entry, tokens);
+        return tokens;
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    private String key(byte[] bytes) {
+        MessageDigest digest = sha256();
+        digest.update((byte) FORMAT_VERSION);
+        digest.update((byte) Lexer.VERSION);
+        digest.update(keywordDigest);
+        digest.update(bytes);
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest())
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return key.toString();
+    }
+
+    private synchronized boolean touch(String key, Path entry) throws IOException {
+        if (entries.get(key) == null)
+            return false;
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            totalBytes -= entries.remove(key);
+            return false;
+        }
+    }
+
+    private synchronized void remove(String key, Path entry) throws IOException {
+        Long size = entries.remove(key);
+        if (size != null)
+            totalBytes -= size;
+        Files.deleteIfExists(entry);
+    }
+
+    private void store(String key, Path entry, List<Token> tokens) throws IOException {
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            write(temporary, tokens);
+            Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        long size = Files.size(entry);
+        synchronized (this) {
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            Files.deleteIfExists(directory.resolve(entry.getKey() + SUFFIX));
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private void loadEntries() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = new ArrayList<>(list.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).collect(Collectors.toList()));
+        }
+        files.sort(Comparator.comparing(path -> {
+            try {
+                return Files.getLastModifiedTime(path);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    private static void write(Path path, List<Token> tokens) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TokenStreamWriter out = new TokenStreamWriter(bytes)) {
+            out.writeAll(tokens);
+        }
+        int checksum = checksum(bytes.toByteArray(), bytes.size());
+        for (int shift = 24; shift >= 0; shift -= 8)
+            bytes.write(checksum >>> shift);
+        Files.write(path, bytes.toByteArray());
+    }
+
+    private static List<Token> read(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        int length = bytes.length - CHECKSUM_LENGTH;
+        if (length < 0)
+            throw new IOException("Cache entry is truncated");
+        int checksum = 0;
+        for (int i = length; i < bytes.length; i++)
+            checksum = (checksum << 8) | (bytes[i] & 0xFF);
+        if (checksum != checksum(bytes, length))
+            throw new IOException("Cache entry checksum does not match");
+        try (TokenStreamReader in = new TokenStreamReader(new ByteArrayInputStream(bytes, 0, length))) {
+            return in.readAll();
+        }
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+@FunctionalInterface
+public interface TokenSink {
+    void token(TokenType type, String value, int line);
+
+    // When the lexer slices values, text tokens arrive with a null value and are read from [start, end) of the source.
+    default void token(TokenType type, String value, int line, int start, int end) {
+        token(type, value, line);
+    }
+
+    // With number parsing on, numeric literals also carry their value: the integer itself, the raw bits of the double
+    // for floats, or -1 when it has to be recovered from the text.
+    default void token(TokenType type, String value, int line, int start, int end, long number) {
+        token(type, value, line, start, end);
+    }
+
+    // With lazy strings on, string literals arrive undecoded: [start, end) spans the whole literal, quotes included, and
+    // hasEscapes is false when its content can be sliced from the source as is.
+    default void stringToken(int line, int start, int end, boolean hasEscapes) {
+        token(TokenType.STRING_LITERAL, null, line, start, end);
+    }
+
+    // Called each time the lexer consumes a line break, with the offset the next physical line starts at. Token line
+    // numbers do not count every line break, so the two can differ.
+    default void lineStart(int offset) {
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TokenStreamReader implements Closeable {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int MAX_PREALLOCATED_LENGTH = 1 << 16;
+
+    private final InputStream in;
+    private final List<String> strings = new ArrayList<>();
+    private int previousLine = 0;
+    private boolean ended = false;
+
+    public TokenStreamReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in);
+        int magic = 0;
+        for (int i = 0; i < 4; i++)
+            magic = (magic << 8) | readByte();
+        if (magic != TokenStreamWriter.MAGIC)
+            throw new IOException("Not a token stream");
+        int version = readVarint();
+        if (version != TokenStreamWriter.VERSION)
+            throw new IOException("Unsupported token stream version " + version);
+    }
+
+    public Token next() throws IOException {
+        if (ended)
+            return null;
+        int type = readVarint();
+        if (type == TokenStreamWriter.END_OF_STREAM) {
+            ended = true;
+            return null;
+        }
+        if (type < 0 || type > TYPES.length)
+            throw new IOException("Corrupt token stream: unknown token type " + (type - 1));
+        int delta = readVarint();
+        previousLine += (delta >>> 1) ^ -(delta & 1);
+        return new Token(TYPES[type - 1], readValue(TYPES[type - 1]), previousLine);
+    }
+
+    public List<Token> readAll() throws IOException {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        while ((token = next()) != null)
+            tokens.add(token);
+        return tokens;
+    }
+
+    public void readAll(TokenSink sink) throws IOException {
+        Token token;
+        while ((token = next()) != null)
+            sink.token(token.getType(), token.getValue(), token.getLine());
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readValue(TokenType type) throws IOException {
+        int index = readVarint();
+        if (index == TokenStreamWriter.FIXED_VALUE)
+            return type.getValue();
+        if (index < 0 || index > strings.size() + 1)
+            throw new IOException("Corrupt token stream: string " + index + " is not defined");
+        if (index <= strings.size())
+            return strings.get(index - 1);
+        int length = readVarint();
+        if (length < 0)
+            throw new IOException("Corrupt token stream: negative string length");
+        StringBuilder chars = new StringBuilder(Math.min(length, MAX_PREALLOCATED_LENGTH));
+        try {
+            for (int i = 0; i < length; i++)
+                chars.append((char) readVarint());
+        } catch (EOFException e) {
+            throw new IOException("Corrupt token stream: string of length " + length + " runs past the end", e);
+        }
+        String value = chars.toString();
+        strings.add(value);
+        return value;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Corrupt token stream: varint is too long");
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0)
+            throw new EOFException("Token stream ended unexpectedly");
+        return b;
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TokenStreamWriter implements TokenSink, Closeable {
+    static final int MAGIC = 0x544B5354;
+    static final int VERSION = 1;
+    static final int END_OF_STREAM = 0;
+    static final int FIXED_VALUE = 0;
+
+    private final OutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final SourceText source;
+    private int previousLine = 0;
+
+    public TokenStreamWriter(OutputStream out) throws IOException {
+        this(out, null);
+    }
+
+    public TokenStreamWriter(OutputStream out, SourceText source) throws IOException {
+        this.out = new BufferedOutputStream(out);
+        this.source = source;
+        for (int shift = 24; shift >= 0; shift -= 8)
+            this.out.write(MAGIC >>> shift);
+        writeVarint(VERSION);
+    }
+
+    @Override
+    public void token(TokenType type, String value, int line) {
+        try {
+            write(type, value, line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void token(TokenType type, String value, int line, int start, int end) {
+        token(type, value != null ? value : source().substring(start, end), line);
+    }
+
+    @Override
+    public void stringToken(int line, int start, int end, boolean hasEscapes) {
+        token(TokenType.STRING_LITERAL, StringLiterals.value(source(), start, end, hasEscapes), line);
+    }
+
+    public void write(Token token) throws IOException {
+        write(token.getType(), token.getValue(), token.getLine());
+    }
+
+    public void writeAll(List<Token> tokens) throws IOException {
+        for (Token token : tokens)
+            write(token);
+    }
+
+    public void write(TokenType type, String value, int line) throws IOException {
+        if (value == null)
+            throw new IllegalArgumentException("Token values must be materialized before writing");
+        writeVarint(type.ordinal() + 1);
+        int delta = line - previousLine;
+        writeVarint((delta << 1) ^ (delta >> 31));
+        previousLine = line;
+
+        if (value.equals(type.getValue())) {
+            writeVarint(FIXED_VALUE);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarint(index + 1);
+            return;
+        }
+        strings.put(value, strings.size());
+        writeVarint(strings.size());
+        writeVarint(value.length());
+        for (int i = 0; i < value.length(); i++)
+            writeVarint(value.charAt(i));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeVarint(END_OF_STREAM);
+        out.close();
+    }
+
+    private SourceText source() {
+        if (source == null)
+            throw new IllegalStateException("Token values were sliced, but the writer has no source text");
+        return source;
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
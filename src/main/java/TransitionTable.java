@@ -0,0 +1,136 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+final class TransitionTable {
+    static final int NONE = -1;
+    static final int APPEND = 1 << 8;
+    static final int STATE_MASK = APPEND - 1;
+
+    static final TransitionTable INSTANCE = new TransitionTable();
+
+    private static final int NON_ASCII = 128;
+    private static final String DIGITS = "0123456789";
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final String IDENTIFIER_PART = LETTERS + DIGITS + "_";
+    private static final String INLINE_WHITESPACE = " \t\u000B\f\r\u001C\u001D\u001E\u001F";
+
+    private final byte[] classes = new byte[NON_ASCII + 1];
+    private final int classCount;
+    private final int[] actions;
+
+    private TransitionTable() {
+        int[][] columns = new int[NON_ASCII + 1][AutomataState.values().length];
+        for (int[] column : columns)
+            Arrays.fill(column, NONE);
+        declare(columns);
+
+        Map<String, Integer> distinct = new HashMap<>();
+        for (int ch = 0; ch < columns.length; ch++)
+            classes[ch] = (byte) (int) distinct.computeIfAbsent(Arrays.toString(columns[ch]), key -> distinct.size());
+        classCount = distinct.size();
+
+        int states = AutomataState.values().length;
+        actions = new int[states * classCount];
+        for (int ch = 0; ch < columns.length; ch++)
+            for (int state = 0; state < states; state++)
+                actions[state * classCount + classes[ch]] = columns[ch][state];
+    }
+
+    int action(int state, char ch) {
+        return actions[state * classCount + classes[ch < NON_ASCII ? ch : NON_ASCII]];
+    }
+
+    private static void declare(int[][] columns) {
+        append(columns, AutomataState.KEYWORD_OR_IDENTIFIER, chars(IDENTIFIER_PART), AutomataState.KEYWORD_OR_IDENTIFIER);
+        append(columns, AutomataState.IDENTIFIER_OR_STRING_LITERAL, chars(IDENTIFIER_PART), AutomataState.KEYWORD_OR_IDENTIFIER);
+        skip(columns, AutomataState.COMMENT, anyExcept("\n"), AutomataState.COMMENT);
+
+        append(columns, AutomataState.DECIMAL_INTEGER, chars(DIGITS + "_"), AutomataState.DECIMAL_INTEGER);
+        append(columns, AutomataState.DECIMAL_INTEGER, chars("."), AutomataState.FLOAT);
+        append(columns, AutomataState.DECIMAL_INTEGER, chars("jJ"), AutomataState.IMAGINARY);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("."), AutomataState.FLOAT);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("bB"), AutomataState.BINARY_INTEGER_START);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("oO"), AutomataState.OCTAL_INTEGER_START);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("xX"), AutomataState.HEX_INTEGER_START);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("jJ"), AutomataState.IMAGINARY);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("0"), AutomataState.ZERO_INTEGER);
+        append(columns, AutomataState.STARTING_WITH_ZERO, chars("123456789"), AutomataState.INTEGER_WITH_ZERO_PREFIX);
+        append(columns, AutomataState.ZERO_INTEGER, chars("0"), AutomataState.ZERO_INTEGER);
+        append(columns, AutomataState.ZERO_INTEGER, chars("123456789"), AutomataState.INTEGER_WITH_ZERO_PREFIX);
+        append(columns, AutomataState.ZERO_INTEGER, chars("."), AutomataState.FLOAT);
+        append(columns, AutomataState.ZERO_INTEGER, chars("jJ"), AutomataState.IMAGINARY);
+        append(columns, AutomataState.INTEGER_WITH_ZERO_PREFIX, chars(DIGITS), AutomataState.INTEGER_WITH_ZERO_PREFIX);
+        append(columns, AutomataState.INTEGER_WITH_ZERO_PREFIX, chars("."), AutomataState.FLOAT);
+        append(columns, AutomataState.INTEGER_WITH_ZERO_PREFIX, chars("jJ"), AutomataState.IMAGINARY);
+        append(columns, AutomataState.FLOAT, chars(DIGITS), AutomataState.FLOAT);
+        append(columns, AutomataState.FLOAT, chars("jJ"), AutomataState.IMAGINARY);
+        append(columns, AutomataState.DOT, chars(DIGITS), AutomataState.FLOAT);
+        append(columns, AutomataState.EXPONENT_FLOAT_ON_INTEGER, chars(DIGITS + "+-"), AutomataState.EXPONENT_FLOAT);
+        append(columns, AutomataState.EXPONENT_FLOAT_ON_FLOAT, chars(DIGITS + "+-"), AutomataState.EXPONENT_FLOAT);
+        append(columns, AutomataState.EXPONENT_FLOAT, chars(DIGITS), AutomataState.EXPONENT_FLOAT);
+        append(columns, AutomataState.BINARY_INTEGER_START, chars("01"), AutomataState.BINARY_INTEGER);
+        append(columns, AutomataState.BINARY_INTEGER, chars("01"), AutomataState.BINARY_INTEGER);
+        append(columns, AutomataState.OCTAL_INTEGER_START, chars("01234567"), AutomataState.OCTAL_INTEGER);
+        append(columns, AutomataState.OCTAL_INTEGER, chars("01234567"), AutomataState.OCTAL_INTEGER);
+        append(columns, AutomataState.HEX_INTEGER_START, chars(DIGITS + "abcdefABCDEF"), AutomataState.HEX_INTEGER);
+        append(columns, AutomataState.HEX_INTEGER, chars(DIGITS + "abcdefABCDEF"), AutomataState.HEX_INTEGER);
+
+        append(columns, AutomataState.SINGLE_QUOTED_STRING, anyExcept("'\\\n"), AutomataState.SINGLE_QUOTED_STRING);
+        append(columns, AutomataState.DOUBLE_QUOTED_STRING, anyExcept("\"\\\n"), AutomataState.DOUBLE_QUOTED_STRING);
+        append(columns, AutomataState.TRIPLE_QUOTED_STRING, anyExcept("'\\\n"), AutomataState.TRIPLE_QUOTED_STRING);
+
+        skip(columns, AutomataState.FIRST_INDENT, chars(INLINE_WHITESPACE), AutomataState.FIRST_INDENT);
+        skip(columns, AutomataState.BACKSLASH, chars(INLINE_WHITESPACE), AutomataState.BACKSLASH);
+
+        for (AutomataState operator : new AutomataState[]{AutomataState.PLUS, AutomataState.DOUBLE_SLASH, AutomataState.POWER,
+                AutomataState.PERCENT, AutomataState.AT, AutomataState.LEFT_SHIFT, AutomataState.RIGHT_SHIFT, AutomataState.BITWISE_OR,
+                AutomataState.BITWISE_AND, AutomataState.BITWISE_XOR, AutomataState.ASSIGN, AutomataState.COLON})
+            append(columns, operator, chars("="), AutomataState.ASSIGNMENT_OPERATOR);
+        append(columns, AutomataState.MINUS, chars("="), AutomataState.ASSIGNMENT_OPERATOR);
+        append(columns, AutomataState.MINUS, chars(">"), AutomataState.ARROW);
+        append(columns, AutomataState.ASTERISK, chars("="), AutomataState.ASSIGNMENT_OPERATOR);
+        append(columns, AutomataState.ASTERISK, chars("*"), AutomataState.POWER);
+        append(columns, AutomataState.SLASH, chars("="), AutomataState.ASSIGNMENT_OPERATOR);
+        append(columns, AutomataState.SLASH, chars("/"), AutomataState.DOUBLE_SLASH);
+        append(columns, AutomataState.LESS, chars("="), AutomataState.LESS_EQUAL);
+        append(columns, AutomataState.LESS, chars("<"), AutomataState.LEFT_SHIFT);
+        append(columns, AutomataState.GREATER, chars("="), AutomataState.GREATER_EQUAL);
+        append(columns, AutomataState.GREATER, chars(">"), AutomataState.RIGHT_SHIFT);
+        append(columns, AutomataState.EXCLAMATION_MARK, chars("="), AutomataState.NOT_EQUAL);
+    }
+
+    private static void append(int[][] columns, AutomataState from, boolean[] chars, AutomataState to) {
+        define(columns, from, chars, to.ordinal() | APPEND);
+    }
+
+    private static void skip(int[][] columns, AutomataState from, boolean[] chars, AutomataState to) {
+        define(columns, from, chars, to.ordinal());
+    }
+
+    private static void define(int[][] columns, AutomataState from, boolean[] chars, int action) {
+        for (int ch = 0; ch < chars.length; ch++) {
+            if (!chars[ch])
+                continue;
+            if (ch == '\n')
+                throw new IllegalStateException("Line breaks must reach the state handlers, not the table");
+            if (columns[ch][from.ordinal()] != NONE)
+                throw new IllegalStateException("Duplicate transition from " + from + " on " + ch);
+            columns[ch][from.ordinal()] = action;
+        }
+    }
+
+    private static boolean[] chars(String members) {
+        boolean[] set = new boolean[NON_ASCII + 1];
+        for (int i = 0; i < members.length(); i++)
+            set[members.charAt(i)] = true;
+        return set;
+    }
+
+    private static boolean[] anyExcept(String excluded) {
+        boolean[] set = chars(excluded);
+        for (int i = 0; i < set.length; i++)
+            set[i] = !set[i];
+        return set;
+    }
+}
@@ -0,0 +1,145 @@
+import java.nio.ByteBuffer;
+
+class Utf8Decoder {
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final int[] pending = new int[4];
+    private int pendingLength = 0;
+    private int pendingNeeded = 0;
+    private boolean atStart = true;
+
+    int decode(ByteBuffer src, char[] dst, int off) {
+        int dp = off;
+        int sp = src.position();
+        int sl = src.limit();
+        int dl = dst.length;
+
+        if (pendingLength > 0) {
+            while (pendingLength < pendingNeeded && sp < sl) {
+                int b = src.get(sp) & 0xFF;
+                if (!isValid(pending[0], pendingLength, b))
+                    break;
+                pending[pendingLength++] = b;
+                sp++;
+            }
+            if (pendingLength < pendingNeeded && sp == sl) {
+                src.position(sp);
+                return 0;
+            }
+            int cp = pendingLength == pendingNeeded
+                    ? codePoint(pending[0], pending[1], pending[2], pending[3], pendingNeeded) : REPLACEMENT;
+            pendingLength = 0;
+            dp = put(cp, dst, dp, off);
+        }
+
+        byte[] array = src.hasArray() ? src.array() : null;
+        int base = array != null ? src.arrayOffset() : 0;
+        while (dp < dl && sp < sl) {
+            if (array != null) {
+                int b;
+                while (dp < dl && sp < sl && (b = array[base + sp]) >= 0) {
+                    dst[dp++] = (char) b;
+                    sp++;
+                }
+            } else {
+                int b;
+                while (dp < dl && sp < sl && (b = src.get(sp)) >= 0) {
+                    dst[dp++] = (char) b;
+                    sp++;
+                }
+            }
+            if (dp == dl || sp == sl)
+                break;
+
+            int b0 = src.get(sp) & 0xFF;
+            int n = sequenceLength(b0);
+            if (n == 0) {
+                dp = put(REPLACEMENT, dst, dp, off);
+                sp++;
+                continue;
+            }
+            if (n == 4 && dp + 1 == dl)
+                break;
+            int valid = 1;
+            while (valid < n && sp + valid < sl && isValid(b0, valid, src.get(sp + valid) & 0xFF))
+                valid++;
+            if (valid == n) {
+                dp = put(codePoint(b0, src.get(sp + 1) & 0xFF,
+                        n > 2 ? src.get(sp + 2) & 0xFF : 0, n > 3 ? src.get(sp + 3) & 0xFF : 0, n), dst, dp, off);
+                sp += n;
+            } else if (sp + valid == sl) {
+                pendingNeeded = n;
+                while (sp < sl)
+                    pending[pendingLength++] = src.get(sp++) & 0xFF;
+                break;
+            } else {
+                dp = put(REPLACEMENT, dst, dp, off);
+                sp += valid;
+            }
+        }
+        src.position(sp);
+        if (dp > off)
+            atStart = false;
+        return dp - off;
+    }
+
+    void reset() {
+        pendingLength = 0;
+        pendingNeeded = 0;
+        atStart = true;
+    }
+
+    int finish(char[] dst, int off) {
+        if (pendingLength == 0)
+            return 0;
+        pendingLength = 0;
+        dst[off] = REPLACEMENT;
+        return 1;
+    }
+
+    private int put(int cp, char[] dst, int dp, int off) {
+        if (atStart && dp == off && cp == SourceReader.BYTE_ORDER_MARK) {
+            atStart = false;
+            return dp;
+        }
+        if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            dst[dp] = (char) cp;
+            return dp + 1;
+        }
+        dst[dp] = Character.highSurrogate(cp);
+        dst[dp + 1] = Character.lowSurrogate(cp);
+        return dp + 2;
+    }
+
+    private static int sequenceLength(int b0) {
+        if (b0 >= 0xC2 && b0 <= 0xDF)
+            return 2;
+        if (b0 >= 0xE0 && b0 <= 0xEF)
+            return 3;
+        if (b0 >= 0xF0 && b0 <= 0xF4)
+            return 4;
+        return 0;
+    }
+
+    private static boolean isValid(int b0, int index, int b) {
+        if (!isContinuation(b))
+            return false;
+        return index != 1 || !((b0 == 0xE0 && b < 0xA0)
+                || (b0 == 0xF0 && b < 0x90)
+                || (b0 == 0xF4 && b > 0x8F));
+    }
+
+    private static int codePoint(int b0, int b1, int b2, int b3, int n) {
+        if (n == 2)
+            return ((b0 & 0x1F) << 6) | (b1 & 0x3F);
+        if (n == 3) {
+            int cp = ((b0 & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+            return Character.isSurrogate((char) cp) ? REPLACEMENT : cp;
+        }
+        return ((b0 & 0x07) << 18) | ((b1 & 0x3F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F);
+    }
+
+    private static boolean isContinuation(int b) {
+        return (b & 0xC0) == 0x80;
+    }
+}
@@ -2,44 +2,87 @@ import java.util.ArrayList;
 import java.util.Map;
 
 public abstract class Utils {
+    private static final int LETTER = 1;
+    private static final int IDENTIFIER_START = 1 << 1;
+    private static final int IDENTIFIER_PART = 1 << 2;
+    private static final int BINARY_DIGIT = 1 << 3;
+    private static final int OCTAL_DIGIT = 1 << 4;
+    private static final int DECIMAL_DIGIT = 1 << 5;
+    private static final int HEX_DIGIT = 1 << 6;
+    private static final int WHITESPACE = 1 << 7;
 
+    public static final char NOT_AN_ESCAPE = '\0';
+
+    private static final byte[] CHAR_CLASSES = new byte[128];
+    private static final char[] ESCAPES = new char[128];
+
+    static {
+        for (char ch = 0; ch < CHAR_CLASSES.length; ch++) {
+            int flags = 0;
+            if ((ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z'))
+                flags |= LETTER | IDENTIFIER_START | IDENTIFIER_PART;
+            if (ch == '_')
+                flags |= IDENTIFIER_START | IDENTIFIER_PART;
+            if (ch >= '0' && ch <= '9')
+                flags |= IDENTIFIER_PART | DECIMAL_DIGIT | HEX_DIGIT;
+            if (ch >= '0' && ch <= '7')
+                flags |= OCTAL_DIGIT;
+            if (ch == '0' || ch == '1')
+                flags |= BINARY_DIGIT;
+            if ((ch >= 'A' && ch <= 'F') || (ch >= 'a' && ch <= 'f'))
+                flags |= HEX_DIGIT;
+            if (Character.isWhitespace(ch))
+                flags |= WHITESPACE;
+            CHAR_CLASSES[ch] = (byte) flags;
+        }
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\''] = '\'';
+        ESCAPES['\"'] = '\"';
+        ESCAPES['b'] = '\b';
+        ESCAPES['f'] = '\f';
+        ESCAPES['n'] = '\n';
+        ESCAPES['r'] = '\r';
+        ESCAPES['t'] = '\t';
+    }
+
+    private static boolean hasClass(char ch, int flag) {
+        return ch < CHAR_CLASSES.length && (CHAR_CLASSES[ch] & flag) != 0;
+    }
 
     public static boolean isValidIdentifierStart(char ch) {
-        return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z') || ch == '_';
+        return hasClass(ch, IDENTIFIER_START);
     }
 
     public static boolean isValidIdentifierPart(char ch) {
-        return isValidIdentifierStart(ch) || (ch >= '0' && ch <= '9');
+        return hasClass(ch, IDENTIFIER_PART);
+    }
+
+    public static boolean isDigit(char ch) {
+        return ch < CHAR_CLASSES.length ? (CHAR_CLASSES[ch] & DECIMAL_DIGIT) != 0 : Character.isDigit(ch);
+    }
+
+    public static boolean isLetter(char ch) {
+        return ch < CHAR_CLASSES.length ? (CHAR_CLASSES[ch] & LETTER) != 0 : Character.isLetter(ch);
+    }
+
+    public static boolean isWhitespace(char ch) {
+        return ch < CHAR_CLASSES.length ? (CHAR_CLASSES[ch] & WHITESPACE) != 0 : Character.isWhitespace(ch);
     }
 
     public static boolean isCorrectDigit(char ch, int radix) {
         if (radix == 2) {
-            return ch == '0' || ch == '1';
+            return hasClass(ch, BINARY_DIGIT);
         } else if (radix == 8) {
-            return ch >= '0' && ch <= '7';
+            return hasClass(ch, OCTAL_DIGIT);
         } else if (radix == 10) {
-            return Character.isDigit(ch);
+            return isDigit(ch);
         } else if (radix == 16) {
-            return (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'F') || (ch >= 'a' && ch <= 'f');
+            return hasClass(ch, HEX_DIGIT);
         }
         return false;
     }
 
-    public static Character escapeChar(char ch) {
-        if (ch == '\\' || ch == '\'' || ch == '\"') {
-            return ch;
-        } else if (ch == 'b') {
-            return '\b';
-        } else if (ch == 'f') {
-            return '\f';
-        } else if (ch == 'n') {
-            return '\n';
-        } else if (ch == 'r') {
-            return '\r';
-        } else if (ch == 't') {
-            return '\t';
-        } else {
-            return null;
-        }
+    public static char escapeChar(char ch) {
+        return ch < ESCAPES.length ? ESCAPES[ch] : NOT_AN_ESCAPE;
     }
 }
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IncrementalLexerTest {
+    private static final KeywordTable KEYWORDS = new KeywordTable(List.of("def", "return"));
+
+    @Test
+    void editsInAndAroundLongDocstringMatchFullLexing() throws IOException {
+        StringBuilder source = new StringBuilder("def f():\n    '''\n");
+        for (int i = 0; i < 8_000; i++)
+            source.append("    documentation line ").append(i).append(" \\t\n");
+        source.append("    '''\n    return 1\n");
+        String text = source.toString();
+
+        IncrementalLexer lexer = new IncrementalLexer(KEYWORDS);
+        IncrementalLexer.Result result = lexer.analyze(text);
+        int[] offsets = {text.length() / 2, text.indexOf("'''"), text.length() - 3, text.lastIndexOf("'''") + 1};
+        String[] inserts = {"x\n", "'", "2", ""};
+        for (int i = 0; i < offsets.length; i++) {
+            text = text.substring(0, offsets[i]) + inserts[i] + text.substring(offsets[i]);
+            result = lexer.edit(result, offsets[i], 0, inserts[i]);
+            assertEquals(tokens(fullLex(text)), tokens(result.getTokens()), "after edit " + i);
+        }
+    }
+
+    private static TokenBuffer fullLex(String text) throws IOException {
+        TokenBuffer tokens = new TokenBuffer();
+        new Lexer(text.toCharArray(), KEYWORDS).analyze(tokens);
+        return tokens;
+    }
+
+    private static List<String> tokens(TokenBuffer buffer) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < buffer.size(); i++)
+            tokens.add(buffer.type(i) + " " + buffer.value(i) + " " + buffer.line(i) + " " + buffer.start(i));
+        return tokens;
+    }
+}
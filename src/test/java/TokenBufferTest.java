@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBufferTest {
+    private static final KeywordTable KEYWORDS = new KeywordTable(List.of("if"));
+
+    @Test
+    void columnsFollowPhysicalLines() throws IOException {
+        for (String text : List.of("a \\\n  b\n", "x = 'a\\\nb' + c\n", "if x:\n  y = '''p\nq''' $\n\n z\n", "a $\n  b\n")) {
+            TokenBuffer tokens = new TokenBuffer();
+            new Lexer(text.toCharArray(), KEYWORDS).analyze(tokens);
+            for (int i = 0; i < tokens.size(); i++) {
+                int start = Math.min(tokens.start(i), text.length());
+                int lineStart = text.lastIndexOf('\n', start - 1) + 1;
+                assertEquals(start - lineStart, tokens.column(i), text + " token " + i);
+            }
+        }
+    }
+
+    @Test
+    void clearForgetsParsedNumbers() throws IOException {
+        char[] source = "x = 42\n".toCharArray();
+        TokenBuffer tokens = new TokenBuffer();
+        Lexer numbers = new Lexer(source, KEYWORDS);
+        numbers.setParseNumbers(true);
+        numbers.analyze(tokens);
+        assertEquals(42, tokens.longValue(2));
+
+        tokens.clear();
+        new Lexer(source, KEYWORDS).analyze(tokens);
+        assertEquals(TokenType.INTEGER_LITERAL, tokens.type(2));
+        assertThrows(IllegalStateException.class, () -> tokens.longValue(2));
+    }
+}
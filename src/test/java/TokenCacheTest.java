@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenCacheTest {
+    private static final KeywordTable KEYWORDS = new KeywordTable(List.of("def", "return", "if"));
+    private static final String SOURCE = "def f(x):\n    if x:\n        return 'a\\tb' + 0x1F\n    return f(x - 1) * 2.5\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void corruptEntriesAreRelexed() throws IOException {
+        Path file = Files.writeString(directory.resolve("f.py"), SOURCE);
+        TokenCache cache = new TokenCache(directory.resolve("cache"), 1 << 20, KEYWORDS);
+        List<String> expected = tokens(new Lexer(SOURCE.toCharArray(), KEYWORDS).analyze());
+        assertEquals(expected, tokens(cache.analyze(file)));
+
+        Path entry = entry(directory.resolve("cache"));
+        int length = Files.readAllBytes(entry).length;
+        for (int i = 0; i < length; i++) {
+            byte[] bytes = Files.readAllBytes(entry);
+            bytes[i] ^= 1 << (i % 8);
+            Files.write(entry, bytes);
+            assertEquals(expected, tokens(cache.analyze(file)), "byte " + i);
+        }
+    }
+
+    private static Path entry(Path cache) throws IOException {
+        try (Stream<Path> files = Files.list(cache)) {
+            List<Path> entries = files.collect(Collectors.toList());
+            assertEquals(1, entries.size());
+            return entries.get(0);
+        }
+    }
+
+    private static List<String> tokens(List<Token> tokens) {
+        List<String> values = new ArrayList<>();
+        for (Token token : tokens)
+            values.add(token.getType() + " " + token.getValue() + " " + token.getLine());
+        return values;
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenStreamWriterTest {
+    private static final String SOURCE = "def f(x):\n    return u'a\\tb' + \"c\" + '''d\ne''' + 0x1F + 2.5\n";
+    private static final KeywordTable KEYWORDS = new KeywordTable(List.of("def", "return"));
+
+    @Test
+    void writesSlicedAndLazyValuesFromTheSource() throws IOException {
+        List<String> expected = roundTrip(new Lexer(SOURCE.toCharArray(), KEYWORDS), false);
+
+        Lexer sliced = new Lexer(SOURCE.toCharArray(), KEYWORDS);
+        sliced.setSliceValues(true);
+        sliced.setLazyStrings(true);
+        sliced.setParseNumbers(true);
+        assertEquals(expected, roundTrip(sliced, true));
+    }
+
+    @Test
+    void rejectsSlicedValuesWithoutSource() throws IOException {
+        Lexer sliced = new Lexer(SOURCE.toCharArray(), KEYWORDS);
+        sliced.setSliceValues(true);
+        try (TokenStreamWriter out = new TokenStreamWriter(new ByteArrayOutputStream())) {
+            assertThrows(IllegalStateException.class, () -> sliced.analyze(out));
+        }
+    }
+
+    @Test
+    void rejectsStringLengthBeyondTheStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new TokenStreamWriter(bytes).close();
+        byte[] header = bytes.toByteArray();
+        byte[] corrupt = Arrays.copyOf(header, header.length - 1 + 8);
+        int at = header.length - 1;
+        corrupt[at++] = (byte) (TokenType.IDENTIFIER.ordinal() + 1);
+        corrupt[at++] = 0;
+        corrupt[at++] = 1;
+        for (byte b : new byte[]{(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07})
+            corrupt[at++] = b;
+        try (TokenStreamReader in = new TokenStreamReader(new ByteArrayInputStream(corrupt))) {
+            IOException e = assertThrows(IOException.class, in::readAll);
+            assertTrue(e.getMessage().startsWith("Corrupt token stream"), e.getMessage());
+        }
+    }
+
+    private static List<String> roundTrip(Lexer lexer, boolean withSource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TokenStreamWriter out = withSource
+                ? new TokenStreamWriter(bytes, lexer.getSource())
+                : new TokenStreamWriter(bytes)) {
+            lexer.analyze(out);
+        }
+        List<String> tokens = new ArrayList<>();
+        try (TokenStreamReader in = new TokenStreamReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (Token token : in.readAll())
+                tokens.add(token.getType() + " " + token.getValue() + " " + token.getLine());
+        }
+        return tokens;
+    }
+}
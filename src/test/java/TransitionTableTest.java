@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransitionTableTest {
+    private static final KeywordTable KEYWORDS = new KeywordTable(List.of("def", "return", "if", "else", "while", "in"));
+    private static final String NON_ASCII = "\u00e9\u0663\u00a0\u2028";
+    private static final String[] TAILS = {"", "1", "a ", "'", "\"", "\\\n", "=\n", "e+1j", "'''\nx"};
+    private static final String[] SNIPPETS = {
+            "self", "x", "_priv", "u", "U", "b", "def", "return", "if", "else", "in",
+            "+", "-", "*", "/", "//", "%", "**", "<<", ">>", "&", "|", "^", "~", "<", ">", "<=", ">=", "==", "!=",
+            "=", "+=", "//=", "**=", "->", ":", ".", ",", ";", "(", ")", "[", "]", "@", "!(", "!x", "$", "?",
+            "0", "00", "0001", "42", "1_000", "3.14", ".5", "1e10", "2E-3", "4e+5", "1ej", "0x1F", "0xZZ", "0b101",
+            "0b12", "0o17", "0o9", "7j", "0.5e3", "12abc", "0e", "1e", "9e)", "0.", "0x", "099",
+            "'abc'", "\"d\\tq\"", "u'uni'", "U\"x\\n\"", "''", "'''tri\nple'''", "'''a'b''c'''", "'un closed",
+            "'\\q'", "'it''s'", "'a\\\nb'", "# note", "\\", "\\  x", "\n", "\n    ", "\n\t", "\n  \t"};
+    private static final String NOISE = "aZ_09eEjJxXoObB.+-*/%=<>!&|^~@:;,()[]{}'\"\\#$? \t\f\r\n\n" + NON_ASCII;
+
+    @Test
+    void tableMatchesReferenceHandlersInEveryState() throws IOException {
+        for (AutomataState state : AutomataState.values())
+            for (StringType stringType : StringType.values())
+                for (int c = 0; c <= 128 + NON_ASCII.length(); c++) {
+                    char first = c < 128 ? (char) c : c == 128 ? '\u0080' : NON_ASCII.charAt(c - 129);
+                    for (String tail : TAILS)
+                        assertSameTokens(first + tail, inside(state, stringType));
+                }
+    }
+
+    @Test
+    void tableMatchesReferenceHandlersOnGeneratedSource() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder source = new StringBuilder();
+            for (int j = random.nextInt(40); j >= 0; j--)
+                source.append(SNIPPETS[random.nextInt(SNIPPETS.length)]).append(random.nextInt(3) == 0 ? "" : " ");
+            assertSameTokens(source.toString(), null);
+        }
+    }
+
+    @Test
+    void tableMatchesReferenceHandlersOnNoise() throws IOException {
+        Random random = new Random(12);
+        for (int i = 0; i < 5_000; i++) {
+            char[] source = new char[random.nextInt(60)];
+            for (int j = 0; j < source.length; j++)
+                source[j] = NOISE.charAt(random.nextInt(NOISE.length()));
+            assertSameTokens(new String(source), null);
+        }
+    }
+
+    private static Checkpoint inside(AutomataState state, StringType stringType) {
+        return new Checkpoint(state, new int[]{0}, 0, stringType, false, false, true, '1', "1", 1, 0, 0, 0, 0, 0);
+    }
+
+    private static void assertSameTokens(String source, Checkpoint start) throws IOException {
+        List<String> expected = lex(source, start, false, false);
+        String message = (start == null ? "" : start.state + "/" + start.stringType + " ") + escape(source);
+        assertEquals(expected, lex(source, start, true, false), message);
+        assertEquals(expected, lex(source, start, true, true), message);
+    }
+
+    private static List<String> lex(String source, Checkpoint start, boolean tableDriven, boolean instrumented)
+            throws IOException {
+        char[] chars = source.toCharArray();
+        Lexer lexer = new Lexer(chars, chars.length, KEYWORDS, start == null ? Checkpoint.start() : start);
+        lexer.setTableDriven(tableDriven);
+        lexer.setInstrumented(instrumented);
+        List<String> tokens = new ArrayList<>();
+        try {
+            lexer.analyzeUntil(Integer.MAX_VALUE, new TokenSink() {
+                @Override
+                public void token(TokenType type, String value, int line) {
+                    token(type, value, line, -1, -1);
+                }
+
+                @Override
+                public void token(TokenType type, String value, int line, int start, int end) {
+                    tokens.add(type + " " + value + " " + line + " " + start + " " + end);
+                }
+
+                @Override
+                public void lineStart(int offset) {
+                    tokens.add("line " + offset);
+                }
+            });
+        } catch (RuntimeException e) {
+            tokens.add(e.getClass().getName());
+        }
+        return tokens;
+    }
+
+    private static String escape(String source) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : source.toCharArray())
+            escaped.append(c < ' ' || c > '~' ? String.format("\\u%04x", (int) c) : String.valueOf(c));
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Utf8DecoderTest {
+    private static final int[] INTERESTING_BYTES = {
+            0x41, 0x27, 0x0A, 0x80, 0x8F, 0x90, 0x9F, 0xA0, 0xBF, 0xC0, 0xC1, 0xC2, 0xDF,
+            0xE0, 0xE2, 0xED, 0xEF, 0xF0, 0xF1, 0xF4, 0xF5, 0xFF};
+
+    @Test
+    void decodesLikeTheJdkWhateverTheReadSize() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            byte[] bytes = new byte[1 + random.nextInt(8)];
+            for (int j = 0; j < bytes.length; j++)
+                bytes[j] = (byte) INTERESTING_BYTES[random.nextInt(INTERESTING_BYTES.length)];
+            if (bytes[0] == (byte) 0xEF)
+                bytes[0] = 'A';
+            String expected = new String(bytes, StandardCharsets.UTF_8);
+            for (int chunk = 1; chunk <= 4; chunk++)
+                assertEquals(expected, decode(bytes, chunk), () -> hex(bytes));
+        }
+    }
+
+    @Test
+    void keepsBytesAfterSequenceCutAtBlockEnd() throws IOException {
+        byte[] bytes = new byte[SourceReader.BLOCK_SIZE + 3];
+        bytes[0] = '\'';
+        for (int i = 1; i < SourceReader.BLOCK_SIZE - 1; i++)
+            bytes[i] = 'a';
+        bytes[SourceReader.BLOCK_SIZE - 1] = (byte) 0xE2;
+        bytes[SourceReader.BLOCK_SIZE] = 'B';
+        bytes[SourceReader.BLOCK_SIZE + 1] = '\'';
+        bytes[SourceReader.BLOCK_SIZE + 2] = '\n';
+        String text = new String(bytes, StandardCharsets.UTF_8);
+
+        KeywordTable keywords = new KeywordTable(List.of("if"));
+        assertEquals(tokens(new Lexer(text.toCharArray(), keywords)),
+                tokens(new Lexer(new ByteArrayInputStream(bytes), keywords)));
+        assertEquals(text, decode(bytes, SourceReader.BLOCK_SIZE));
+    }
+
+    @Test
+    void skipsByteOrderMarkOnEveryEntryPoint() throws IOException {
+        String text = "def f():\n    return 1\n";
+        String marked = SourceReader.BYTE_ORDER_MARK + text;
+        KeywordTable keywords = new KeywordTable(List.of("def", "return"));
+        List<String> expected = tokens(new Lexer(text.toCharArray(), keywords).analyze());
+
+        assertEquals(expected, tokens(new Lexer(marked.toCharArray(), keywords).analyze()));
+        assertEquals(expected, tokens(new Lexer(new ByteArrayInputStream(marked.getBytes(StandardCharsets.UTF_8)), keywords).analyze()));
+        assertEquals(expected, tokens(new ParallelLexer(keywords).analyzeChunked(marked.toCharArray())));
+    }
+
+    private static String decode(byte[] bytes, int chunk) throws IOException {
+        StreamSourceReader reader = new StreamSourceReader(new ChunkedInputStream(bytes, chunk));
+        return reader.readFully().toString();
+    }
+
+    private static List<String> tokens(Lexer lexer) throws IOException {
+        return tokens(lexer.analyze());
+    }
+
+    private static List<String> tokens(List<Token> analyzed) {
+        List<String> tokens = new ArrayList<>();
+        for (Token token : analyzed)
+            tokens.add(token.getType() + " " + token.getValue() + " " + token.getLine());
+        return tokens;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes)
+            hex.append(String.format("%02X ", b & 0xFF));
+        return hex.toString().trim();
+    }
+
+    private static final class ChunkedInputStream extends InputStream {
+        private final byte[] bytes;
+        private final int chunk;
+        private int position = 0;
+
+        ChunkedInputStream(byte[] bytes, int chunk) {
+            this.bytes = bytes;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (position == bytes.length)
+                return -1;
+            int n = Math.min(Math.min(length, chunk), bytes.length - position);
+            System.arraycopy(bytes, position, target, offset, n);
+            position += n;
+            return n;
+        }
+    }
+}